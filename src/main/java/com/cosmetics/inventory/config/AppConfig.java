@@ -1,10 +1,11 @@
 package com.cosmetics.inventory.config;
 
+import com.cosmetics.inventory.report.ReportProperties;
 import com.cosmetics.inventory.security.JwtProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties({JwtProperties.class})
+@EnableConfigurationProperties({JwtProperties.class, ReportProperties.class})
 public class AppConfig {
 }
@@ -8,9 +8,11 @@ import java.util.List;
 @Service
 public class ExpenseCategoryService {
 	private final ExpenseCategoryRepository repo;
+	private final ExpenseMonthlyRollupRepository monthlyRollupRepository;
 
-	public ExpenseCategoryService(ExpenseCategoryRepository repo) {
+	public ExpenseCategoryService(ExpenseCategoryRepository repo, ExpenseMonthlyRollupRepository monthlyRollupRepository) {
 		this.repo = repo;
+		this.monthlyRollupRepository = monthlyRollupRepository;
 	}
 
 	@Transactional(readOnly = true)
@@ -66,6 +68,8 @@ public class ExpenseCategoryService {
 		if (!repo.existsById(id)) {
 			return false;
 		}
+		// Expenses still referencing the category block the delete below, so only emptied rollup rows can go here.
+		monthlyRollupRepository.deleteByCategoryId(id);
 		repo.deleteById(id);
 		return true;
 	}
@@ -0,0 +1,42 @@
+package com.cosmetics.inventory.expense;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "expense_monthly_rollup", uniqueConstraints = {
+		@UniqueConstraint(name = "uq_expense_monthly_rollup", columnNames = {"month_start", "category_id"})
+})
+public class ExpenseMonthlyRollupEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "month_start", nullable = false)
+	private LocalDate monthStart;
+
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	@JoinColumn(name = "category_id", nullable = false)
+	private ExpenseCategoryEntity category;
+
+	@Column(nullable = false, precision = 19, scale = 4)
+	private BigDecimal amount = BigDecimal.ZERO;
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDate getMonthStart() {
+		return monthStart;
+	}
+
+	public ExpenseCategoryEntity getCategory() {
+		return category;
+	}
+
+	public BigDecimal getAmount() {
+		return amount;
+	}
+}
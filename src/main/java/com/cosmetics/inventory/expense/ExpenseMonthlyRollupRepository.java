@@ -0,0 +1,35 @@
+package com.cosmetics.inventory.expense;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ExpenseMonthlyRollupRepository extends JpaRepository<ExpenseMonthlyRollupEntity, Long> {
+	@Query("select r from ExpenseMonthlyRollupEntity r join fetch r.category " +
+			"where r.monthStart >= :fromMonth and r.monthStart <= :toMonth and r.amount <> 0")
+	List<ExpenseMonthlyRollupEntity> findBetween(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+	@Modifying
+	@Transactional
+	@Query(value = "insert into expense_monthly_rollup (month_start, category_id, amount) " +
+			"values (:month, :categoryId, :amount) " +
+			"on conflict (month_start, category_id) do update set " +
+			"amount = expense_monthly_rollup.amount + excluded.amount",
+			nativeQuery = true)
+	int addToMonth(
+			@Param("month") LocalDate month,
+			@Param("categoryId") long categoryId,
+			@Param("amount") BigDecimal amount
+	);
+
+	@Modifying
+	@Transactional
+	@Query("delete from ExpenseMonthlyRollupEntity r where r.category.id = :categoryId")
+	int deleteByCategoryId(@Param("categoryId") long categoryId);
+}
@@ -1,12 +1,24 @@
 package com.cosmetics.inventory.expense;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface ExpenseRepository extends JpaRepository<ExpenseEntity, Long> {
 	List<ExpenseEntity> findTop500ByOrderByExpenseDateDescIdDesc();
 
 	List<ExpenseEntity> findTop500ByExpenseDateBetweenOrderByExpenseDateDescIdDesc(LocalDate from, LocalDate to);
+
+	/**
+	 * Locks the expense so a concurrent update or delete cannot take its old amount out of the rollup twice.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select e from ExpenseEntity e where e.id = :id")
+	Optional<ExpenseEntity> lockById(@Param("id") long id);
 }
@@ -0,0 +1,48 @@
+package com.cosmetics.inventory.expense;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+@Component
+public class ExpenseRollupBootstrap implements ApplicationRunner {
+	private final DataSource dataSource;
+
+	public ExpenseRollupBootstrap(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		String sqlLock = "LOCK TABLE expenses IN SHARE MODE";
+		String sqlExists = "SELECT EXISTS (SELECT 1 FROM expense_monthly_rollup)";
+		String sqlBackfill = "INSERT INTO expense_monthly_rollup (month_start, category_id, amount) " +
+				"SELECT CAST(date_trunc('month', expense_date) AS date), category_id, SUM(amount) " +
+				"FROM expenses GROUP BY 1, category_id";
+
+		try (Connection c = dataSource.getConnection()) {
+			c.setAutoCommit(false);
+			try (Statement s = c.createStatement()) {
+				s.execute(sqlLock);
+				boolean populated;
+				try (ResultSet rs = s.executeQuery(sqlExists)) {
+					populated = rs.next() && rs.getBoolean(1);
+				}
+				if (!populated) {
+					s.executeUpdate(sqlBackfill);
+				}
+				c.commit();
+			} catch (Exception e) {
+				c.rollback();
+				throw e;
+			} finally {
+				c.setAutoCommit(true);
+			}
+		}
+	}
+}
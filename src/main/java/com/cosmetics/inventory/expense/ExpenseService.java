@@ -11,10 +11,12 @@ import java.util.List;
 public class ExpenseService {
 	private final ExpenseRepository expenseRepository;
 	private final ExpenseCategoryRepository categoryRepository;
+	private final ExpenseMonthlyRollupRepository monthlyRollupRepository;
 
-	public ExpenseService(ExpenseRepository expenseRepository, ExpenseCategoryRepository categoryRepository) {
+	public ExpenseService(ExpenseRepository expenseRepository, ExpenseCategoryRepository categoryRepository, ExpenseMonthlyRollupRepository monthlyRollupRepository) {
 		this.expenseRepository = expenseRepository;
 		this.categoryRepository = categoryRepository;
+		this.monthlyRollupRepository = monthlyRollupRepository;
 	}
 
 	@Transactional(readOnly = true)
@@ -52,12 +54,15 @@ public class ExpenseService {
 		e.setAmount(amt);
 		e.setPaymentMethod(cmd.paymentMethod());
 		e.setCreatedBy(createdBy);
-		return expenseRepository.save(e);
+		ExpenseEntity saved = expenseRepository.save(e);
+		addToRollup(saved, 1);
+		return saved;
 	}
 
 	@Transactional
 	public ExpenseEntity update(UpdateExpenseCommand cmd) {
-		ExpenseEntity e = expenseRepository.findById(cmd.id()).orElseThrow();
+		ExpenseEntity e = expenseRepository.lockById(cmd.id()).orElseThrow();
+		addToRollup(e, -1);
 
 		if (cmd.expenseDate() != null) {
 			e.setExpenseDate(cmd.expenseDate());
@@ -87,18 +92,31 @@ public class ExpenseService {
 			e.setPaymentMethod(cmd.paymentMethod());
 		}
 
-		return expenseRepository.save(e);
+		ExpenseEntity saved = expenseRepository.save(e);
+		addToRollup(saved, 1);
+		return saved;
 	}
 
 	@Transactional
 	public boolean delete(long id) {
-		if (!expenseRepository.existsById(id)) {
+		ExpenseEntity e = expenseRepository.lockById(id).orElse(null);
+		if (e == null) {
 			return false;
 		}
-		expenseRepository.deleteById(id);
+		addToRollup(e, -1);
+		expenseRepository.delete(e);
 		return true;
 	}
 
+	private void addToRollup(ExpenseEntity e, int sign) {
+		if (e.getAmount() == null || e.getAmount().signum() == 0) return;
+		monthlyRollupRepository.addToMonth(
+				e.getExpenseDate().withDayOfMonth(1),
+				e.getCategory().getId(),
+				sign < 0 ? e.getAmount().negate() : e.getAmount()
+		);
+	}
+
 	public record CreateExpenseCommand(LocalDate expenseDate, Long categoryId, String description, Double amount, ExpensePaymentMethod paymentMethod) {
 	}
 
@@ -0,0 +1,116 @@
+package com.cosmetics.inventory.export;
+
+import com.cosmetics.inventory.stockmovement.StockMovementQueryService;
+import com.cosmetics.inventory.user.PermissionGuard;
+import com.cosmetics.inventory.user.PermissionModule;
+import com.cosmetics.inventory.user.PermissionsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api/exports")
+public class ExportController {
+	private final ExportService exportService;
+	private final PermissionGuard permissionGuard;
+	private final ObjectMapper objectMapper;
+
+	public ExportController(ExportService exportService, PermissionGuard permissionGuard, ObjectMapper objectMapper) {
+		this.exportService = exportService;
+		this.permissionGuard = permissionGuard;
+		this.objectMapper = objectMapper;
+	}
+
+	@GetMapping("/stock-movements")
+	public void stockMovements(
+			@RequestParam(required = false) String format,
+			@RequestParam(required = false) String type,
+			@RequestParam(required = false) Long productId,
+			@RequestParam(required = false) Long batchId,
+			@RequestParam(required = false) String from,
+			@RequestParam(required = false) String to,
+			Authentication authentication,
+			HttpServletResponse response
+	) throws IOException {
+		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
+		ExportFormat f = ExportFormat.parse(format);
+		var criteria = new StockMovementQueryService.MovementCriteria(
+				StockMovementQueryService.parseType(type),
+				productId,
+				batchId,
+				parseInstant(from),
+				parseInstant(to)
+		);
+
+		try (ExportRowWriter writer = open(response, f, "stock-movements", ExportService.MOVEMENT_COLUMNS)) {
+			exportService.exportMovements(criteria, writer);
+		}
+	}
+
+	@GetMapping("/sales")
+	public void sales(
+			@RequestParam(required = false) String format,
+			@RequestParam(required = false) String from,
+			@RequestParam(required = false) String to,
+			Authentication authentication,
+			HttpServletResponse response
+	) throws IOException {
+		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
+		ExportFormat f = ExportFormat.parse(format);
+		Instant fromInstant = parseInstant(from);
+		Instant toInstant = parseInstant(to);
+
+		try (ExportRowWriter writer = open(response, f, "sales", ExportService.SALES_COLUMNS)) {
+			exportService.exportSales(fromInstant, toInstant, writer);
+		}
+	}
+
+	@GetMapping("/inventory")
+	public void inventory(
+			@RequestParam(required = false) String format,
+			@RequestParam(required = false) String query,
+			@RequestParam(required = false) Long productId,
+			@RequestParam(required = false) Boolean includeZero,
+			Authentication authentication,
+			HttpServletResponse response
+	) throws IOException {
+		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
+		ExportFormat f = ExportFormat.parse(format);
+
+		try (ExportRowWriter writer = open(response, f, "inventory", ExportService.INVENTORY_COLUMNS)) {
+			exportService.exportInventory(query, productId, Boolean.TRUE.equals(includeZero), writer);
+		}
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<String> badRequest(IllegalArgumentException ex) {
+		return ResponseEntity.badRequest().body(ex.getMessage());
+	}
+
+	private ExportRowWriter open(HttpServletResponse response, ExportFormat format, String name, String[] columns) throws IOException {
+		response.setContentType(format.contentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.extension() + "\"");
+		return ExportRowWriter.open(format, response.getOutputStream(), objectMapper, columns);
+	}
+
+	private static Instant parseInstant(String value) {
+		if (value == null || value.isBlank()) return null;
+		try {
+			return Instant.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid timestamp: " + value.trim());
+		}
+	}
+}
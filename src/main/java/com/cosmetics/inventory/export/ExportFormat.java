@@ -0,0 +1,31 @@
+package com.cosmetics.inventory.export;
+
+public enum ExportFormat {
+	CSV("text/csv", "csv"),
+	NDJSON("application/x-ndjson", "ndjson");
+
+	private final String contentType;
+	private final String extension;
+
+	ExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	public String contentType() {
+		return contentType;
+	}
+
+	public String extension() {
+		return extension;
+	}
+
+	public static ExportFormat parse(String format) {
+		if (format == null || format.isBlank()) return CSV;
+		try {
+			return ExportFormat.valueOf(format.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unsupported export format: " + format.trim());
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.cosmetics.inventory.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public abstract class ExportRowWriter implements AutoCloseable {
+	protected final String[] columns;
+
+	protected ExportRowWriter(String[] columns) {
+		this.columns = columns;
+	}
+
+	public static ExportRowWriter open(ExportFormat format, OutputStream out, ObjectMapper objectMapper, String[] columns) {
+		try {
+			ExportRowWriter writer = switch (format) {
+				case CSV -> new Csv(out, columns);
+				case NDJSON -> new Ndjson(objectMapper, out, columns);
+			};
+			writer.start();
+			return writer;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void write(Object[] values) {
+		try {
+			writeRow(values);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			finish();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	protected abstract void start() throws IOException;
+
+	protected abstract void writeRow(Object[] values) throws IOException;
+
+	protected abstract void finish() throws IOException;
+
+	private static final class Csv extends ExportRowWriter {
+		private final BufferedWriter out;
+
+		private Csv(OutputStream out, String[] columns) {
+			super(columns);
+			this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+		}
+
+		@Override
+		protected void start() throws IOException {
+			writeRow(columns);
+		}
+
+		@Override
+		protected void writeRow(Object[] values) throws IOException {
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) out.write(',');
+				if (values[i] != null) out.write(escape(String.valueOf(values[i])));
+			}
+			out.write("\r\n");
+		}
+
+		@Override
+		protected void finish() throws IOException {
+			out.flush();
+		}
+
+		private static String escape(String value) {
+			boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+					|| value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+			return quote ? ('"' + value.replace("\"", "\"\"") + '"') : value;
+		}
+	}
+
+	private static final class Ndjson extends ExportRowWriter {
+		private final JsonGenerator json;
+		private boolean empty = true;
+
+		private Ndjson(ObjectMapper objectMapper, OutputStream out, String[] columns) throws IOException {
+			super(columns);
+			this.json = objectMapper.getFactory().createGenerator(out);
+			this.json.setRootValueSeparator(new SerializedString("\n"));
+		}
+
+		@Override
+		protected void start() {
+		}
+
+		@Override
+		protected void writeRow(Object[] values) throws IOException {
+			json.writeStartObject();
+			for (int i = 0; i < columns.length; i++) {
+				json.writeFieldName(columns[i]);
+				Object v = values[i];
+				if (v == null) {
+					json.writeNull();
+				} else if (v instanceof Number n) {
+					json.writeNumber(n.toString());
+				} else {
+					json.writeString(String.valueOf(v));
+				}
+			}
+			json.writeEndObject();
+			empty = false;
+		}
+
+		@Override
+		protected void finish() throws IOException {
+			if (!empty) {
+				json.writeRaw('\n');
+			}
+			json.flush();
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package com.cosmetics.inventory.export;
+
+import com.cosmetics.inventory.stockmovement.StockMovementQueryService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class ExportService {
+	static final int FETCH_SIZE = 500;
+
+	public static final String[] MOVEMENT_COLUMNS = {
+			"id", "type", "quantity", "createdAt", "createdBy", "note",
+			"batchId", "batchNumber", "expiryDate", "productId", "sku", "productName"
+	};
+
+	public static final String[] SALES_COLUMNS = {
+			"saleId", "soldAt", "soldBy", "customer", "referenceNumber",
+			"lineId", "productId", "sku", "productName", "location", "quantity", "unitPrice", "lineTotal"
+	};
+
+	public static final String[] INVENTORY_COLUMNS = {
+			"id", "productId", "sku", "productName", "unitOfMeasure",
+			"batchId", "batchNumber", "expiryDate", "location", "qtyOnHand"
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate readOnlyTx;
+
+	public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+	}
+
+	public void exportMovements(StockMovementQueryService.MovementCriteria c, ExportRowWriter writer) {
+		StringBuilder sql = new StringBuilder(
+				"select m.id, m.type, m.quantity, m.created_at, m.created_by, m.note, " +
+						"b.id, b.batch_number, b.expiry_date, p.id, p.sku, p.name " +
+						"from stock_movements m join product_batches b on b.id = m.batch_id " +
+						"join products p on p.id = b.product_id where 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (c.type() != null) {
+			sql.append(" and m.type = ?");
+			args.add(c.type().name());
+		}
+		if (c.batchId() != null) {
+			sql.append(" and m.batch_id = ?");
+			args.add(c.batchId());
+		}
+		if (c.productId() != null) {
+			sql.append(" and b.product_id = ?");
+			args.add(c.productId());
+		}
+		if (c.from() != null) {
+			sql.append(" and m.created_at >= ?");
+			args.add(toTimestamp(c.from()));
+		}
+		if (c.to() != null) {
+			sql.append(" and m.created_at <= ?");
+			args.add(toTimestamp(c.to()));
+		}
+		sql.append(" order by m.created_at desc, m.id desc");
+
+		stream(sql.toString(), args, MOVEMENT_COLUMNS.length, writer, (rs, row) -> {
+			row[0] = rs.getLong(1);
+			row[1] = rs.getString(2);
+			row[2] = rs.getInt(3);
+			row[3] = instant(rs, 4);
+			row[4] = rs.getString(5);
+			row[5] = rs.getString(6);
+			row[6] = rs.getLong(7);
+			row[7] = rs.getString(8);
+			row[8] = date(rs, 9);
+			row[9] = rs.getLong(10);
+			row[10] = rs.getString(11);
+			row[11] = rs.getString(12);
+		});
+	}
+
+	public void exportSales(Instant from, Instant to, ExportRowWriter writer) {
+		StringBuilder sql = new StringBuilder(
+				"select so.id, so.sold_at, so.sold_by, so.customer, so.reference_number, " +
+						"l.id, p.id, p.sku, p.name, l.location, l.quantity, l.unit_price, l.quantity * l.unit_price " +
+						"from sales_orders so join sales_order_lines l on l.sales_order_id = so.id " +
+						"join products p on p.id = l.product_id where 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (from != null) {
+			sql.append(" and so.sold_at >= ?");
+			args.add(toTimestamp(from));
+		}
+		if (to != null) {
+			sql.append(" and so.sold_at <= ?");
+			args.add(toTimestamp(to));
+		}
+		sql.append(" order by so.sold_at, so.id, l.id");
+
+		stream(sql.toString(), args, SALES_COLUMNS.length, writer, (rs, row) -> {
+			row[0] = rs.getLong(1);
+			row[1] = instant(rs, 2);
+			row[2] = rs.getString(3);
+			row[3] = rs.getString(4);
+			row[4] = rs.getString(5);
+			row[5] = rs.getLong(6);
+			row[6] = rs.getLong(7);
+			row[7] = rs.getString(8);
+			row[8] = rs.getString(9);
+			row[9] = rs.getString(10) != null ? rs.getString(10) : "MAIN";
+			row[10] = rs.getInt(11);
+			row[11] = rs.getBigDecimal(12);
+			row[12] = rs.getBigDecimal(13);
+		});
+	}
+
+	public void exportInventory(String query, Long productId, boolean includeZero, ExportRowWriter writer) {
+		StringBuilder sql = new StringBuilder(
+				"select i.id, p.id, p.sku, p.name, p.unit_of_measure, b.id, b.batch_number, b.expiry_date, " +
+						"i.location, i.qty_on_hand " +
+						"from inventory i join product_batches b on b.id = i.batch_id " +
+						"join products p on p.id = b.product_id where 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (!includeZero) {
+			sql.append(" and i.qty_on_hand <> 0");
+		}
+		if (productId != null) {
+			sql.append(" and b.product_id = ?");
+			args.add(productId);
+		}
+		if (query != null && !query.isBlank()) {
+			String pattern = "%" + escapeLike(query.trim().toLowerCase()) + "%";
+			sql.append(" and (lower(p.sku) like ? escape '\\' or lower(p.name) like ? escape '\\' " +
+					"or lower(b.batch_number) like ? escape '\\')");
+			args.add(pattern);
+			args.add(pattern);
+			args.add(pattern);
+		}
+		sql.append(" order by i.id");
+
+		stream(sql.toString(), args, INVENTORY_COLUMNS.length, writer, (rs, row) -> {
+			row[0] = rs.getLong(1);
+			row[1] = rs.getLong(2);
+			row[2] = rs.getString(3);
+			row[3] = rs.getString(4);
+			row[4] = rs.getString(5);
+			row[5] = rs.getLong(6);
+			row[6] = rs.getString(7);
+			row[7] = date(rs, 8);
+			row[8] = rs.getString(9);
+			row[9] = rs.getInt(10);
+		});
+	}
+
+	private void stream(String sql, List<Object> args, int width, ExportRowWriter writer, RowReader reader) {
+		// The PostgreSQL driver only uses a server-side cursor (honouring the fetch size) inside a transaction.
+		readOnlyTx.executeWithoutResult(status -> {
+			Object[] row = new Object[width];
+			jdbcTemplate.query(sql, rs -> {
+				reader.read(rs, row);
+				writer.write(row);
+			}, args.toArray());
+		});
+	}
+
+	private static OffsetDateTime toTimestamp(Instant instant) {
+		return instant.atOffset(ZoneOffset.UTC);
+	}
+
+	private static String instant(ResultSet rs, int column) throws SQLException {
+		OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+		return value != null ? value.toInstant().toString() : null;
+	}
+
+	private static String date(ResultSet rs, int column) throws SQLException {
+		LocalDate value = rs.getObject(column, LocalDate.class);
+		return value != null ? value.toString() : null;
+	}
+
+	private static String escapeLike(String value) {
+		return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+
+	@FunctionalInterface
+	private interface RowReader {
+		void read(ResultSet rs, Object[] row) throws SQLException;
+	}
+}
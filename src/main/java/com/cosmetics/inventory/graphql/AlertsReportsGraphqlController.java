@@ -1,8 +1,14 @@
 package com.cosmetics.inventory.graphql;
 
 import com.cosmetics.inventory.inventory.InventoryRepository;
-import com.cosmetics.inventory.sales.SalesOrderRepository;
-import com.cosmetics.inventory.stockmovement.StockMovementRepository;
+import com.cosmetics.inventory.inventory.InventoryValuationRepository;
+import com.cosmetics.inventory.inventory.ProductLocationStockRepository;
+import com.cosmetics.inventory.inventory.ProductStockSummaryRepository;
+import com.cosmetics.inventory.report.ReportCache;
+import com.cosmetics.inventory.report.SalesAggregator;
+import com.cosmetics.inventory.report.SalesDailyRollupRepository;
+import com.cosmetics.inventory.report.SalesReportService;
+import com.cosmetics.inventory.stockmovement.StockMovementQueryService;
 import com.cosmetics.inventory.user.PermissionGuard;
 import com.cosmetics.inventory.user.PermissionModule;
 import com.cosmetics.inventory.user.PermissionsService;
@@ -13,44 +19,60 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+
+import static com.cosmetics.inventory.graphql.GraphqlArguments.parseInstant;
 
 @Controller
 public class AlertsReportsGraphqlController {
 	private final InventoryRepository inventoryRepository;
-	private final StockMovementRepository stockMovementRepository;
-	private final SalesOrderRepository salesOrderRepository;
+	private final InventoryValuationRepository inventoryValuationRepository;
+	private final ProductStockSummaryRepository productStockSummaryRepository;
+	private final ProductLocationStockRepository productLocationStockRepository;
+	private final StockMovementQueryService stockMovementQueryService;
+	private final SalesDailyRollupRepository salesDailyRollupRepository;
+	private final SalesReportService salesReportService;
+	private final ReportCache reportCache;
 	private final PermissionGuard permissionGuard;
 
 	public AlertsReportsGraphqlController(
 			InventoryRepository inventoryRepository,
-			StockMovementRepository stockMovementRepository,
-			SalesOrderRepository salesOrderRepository,
+			InventoryValuationRepository inventoryValuationRepository,
+			ProductStockSummaryRepository productStockSummaryRepository,
+			ProductLocationStockRepository productLocationStockRepository,
+			StockMovementQueryService stockMovementQueryService,
+			SalesDailyRollupRepository salesDailyRollupRepository,
+			SalesReportService salesReportService,
+			ReportCache reportCache,
 			PermissionGuard permissionGuard
 	) {
 		this.inventoryRepository = inventoryRepository;
-		this.stockMovementRepository = stockMovementRepository;
-		this.salesOrderRepository = salesOrderRepository;
+		this.inventoryValuationRepository = inventoryValuationRepository;
+		this.productStockSummaryRepository = productStockSummaryRepository;
+		this.productLocationStockRepository = productLocationStockRepository;
+		this.stockMovementQueryService = stockMovementQueryService;
+		this.salesDailyRollupRepository = salesDailyRollupRepository;
+		this.salesReportService = salesReportService;
+		this.reportCache = reportCache;
 		this.permissionGuard = permissionGuard;
 	}
 
 	@QueryMapping
 	@PreAuthorize("isAuthenticated()")
-	@Transactional(readOnly = true)
 	public List<ExpiryAlertDto> expiryAlerts(@Argument int days) {
 		LocalDate today = LocalDate.now();
-		LocalDate until = today.plusDays(days);
+		return reportCache.get(
+				ReportCache.key("expiryAlerts", days, today),
+				List.of(ReportCache.STOCK, ReportCache.CATALOG),
+				() -> loadExpiryAlerts(today, days)
+		);
+	}
 
-		return inventoryRepository.findAll().stream()
-				.filter(i -> i.getQtyOnHand() > 0)
-				.filter(i -> !i.getBatch().getExpiryDate().isAfter(until))
+	private List<ExpiryAlertDto> loadExpiryAlerts(LocalDate today, int days) {
+		LocalDate until = today.plusDays(days);
+		return inventoryRepository.findInStockExpiringOnOrBefore(until).stream()
 				.map(i -> {
 					var batch = i.getBatch();
 					var product = batch.getProduct();
@@ -66,111 +88,141 @@ public class AlertsReportsGraphqlController {
 							daysToExpiry
 					);
 				})
-				.sorted(Comparator.comparingInt(ExpiryAlertDto::daysToExpiry))
 				.toList();
 	}
 
 	@QueryMapping
 	@PreAuthorize("isAuthenticated()")
-	@Transactional(readOnly = true)
-	public DailySalesReportDto dailySalesReport(Authentication authentication, @Argument String date) {
+	public List<ExpiryBucketDto> expiryBuckets(Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
-		LocalDate day = LocalDate.parse(date);
-		Instant from = day.atStartOfDay(ZoneOffset.UTC).toInstant();
-		Instant to = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
-
-		var orders = salesOrderRepository.findBySoldAtGreaterThanEqualAndSoldAtLessThan(from, to);
-		var itemsByProduct = new java.util.LinkedHashMap<Long, DailySalesReportItemDto>();
+		LocalDate today = LocalDate.now();
+		return reportCache.get(
+				ReportCache.key("expiryBuckets", today),
+				List.of(ReportCache.STOCK),
+				() -> loadExpiryBuckets(today)
+		);
+	}
 
-		BigDecimal totalSales = BigDecimal.ZERO;
-		BigDecimal totalCost = BigDecimal.ZERO;
+	private List<ExpiryBucketDto> loadExpiryBuckets(LocalDate today) {
+		var rows = inventoryRepository.summarizeExpiryBuckets(today, today.plusDays(7), today.plusDays(30), today.plusDays(90)).stream()
+				.collect(java.util.stream.Collectors.toMap(InventoryRepository.ExpiryBucketRow::getBucket, r -> r));
 
-		for (var so : orders) {
-			for (var line : so.getLines()) {
-				var p = line.getProduct();
-				long productId = p.getId();
-				int qty = line.getQuantity();
-				BigDecimal salesAmount = line.getUnitPrice().multiply(BigDecimal.valueOf(qty));
-				BigDecimal costAmount = line.getDeductions().stream()
-						.map(d -> d.getBatch().getCostPrice().multiply(BigDecimal.valueOf(d.getQuantity())))
-						.reduce(BigDecimal.ZERO, BigDecimal::add);
+		return List.of(
+				expiryBucket(rows.get("EXPIRED"), "EXPIRED", null, -1),
+				expiryBucket(rows.get("DAYS_0_7"), "DAYS_0_7", 0, 7),
+				expiryBucket(rows.get("DAYS_8_30"), "DAYS_8_30", 8, 30),
+				expiryBucket(rows.get("DAYS_31_90"), "DAYS_31_90", 31, 90)
+		);
+	}
 
-				DailySalesReportItemDto acc = itemsByProduct.get(productId);
-				if (acc == null) {
-					acc = new DailySalesReportItemDto(
-							productId,
-							p.getSku(),
-							p.getName(),
-							0,
-							0.0,
-							0.0,
-							0.0
-					);
-					itemsByProduct.put(productId, acc);
-				}
+	private static ExpiryBucketDto expiryBucket(InventoryRepository.ExpiryBucketRow row, String bucket, Integer fromDays, Integer toDays) {
+		if (row == null) {
+			return new ExpiryBucketDto(bucket, fromDays, toDays, 0, 0, 0.0);
+		}
+		return new ExpiryBucketDto(
+				bucket,
+				fromDays,
+				toDays,
+				row.getBatchCount().intValue(),
+				row.getQuantity().intValue(),
+				row.getCostValue().doubleValue()
+		);
+	}
 
-				int newQty = acc.quantitySold() + qty;
-				double newSales = acc.salesAmount() + salesAmount.doubleValue();
-				double newCost = acc.costAmount() + costAmount.doubleValue();
-				double newProfit = newSales - newCost;
-				itemsByProduct.put(productId, new DailySalesReportItemDto(
-						acc.productId(),
-						acc.sku(),
-						acc.productName(),
-						newQty,
-						newSales,
-						newCost,
-						newProfit
-				));
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	public DailySalesReportDto dailySalesReport(Authentication authentication, @Argument String date) {
+		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
+		LocalDate day = LocalDate.parse(date);
+		return reportCache.get(
+				ReportCache.key("dailySalesReport", day),
+				List.of(ReportCache.salesDay(day), ReportCache.CATALOG),
+				() -> loadDailySalesReport(day)
+		);
+	}
 
-				totalSales = totalSales.add(salesAmount);
-				totalCost = totalCost.add(costAmount);
-			}
+	private DailySalesReportDto loadDailySalesReport(LocalDate day) {
+		SalesAggregator totals = new SalesAggregator();
+		for (var r : salesDailyRollupRepository.findByDay(day)) {
+			var p = r.getProduct();
+			totals.add(p.getId(), p.getSku(), p.getName(), r.getQuantity(), r.getRevenue(), r.getCost());
 		}
 
-		double totalProfit = totalSales.subtract(totalCost).doubleValue();
 		return new DailySalesReportDto(
 				day.toString(),
-				totalSales.doubleValue(),
-				totalCost.doubleValue(),
-				totalProfit,
-				itemsByProduct.values().stream()
-						.sorted(Comparator.comparing(DailySalesReportItemDto::salesAmount).reversed())
-						.toList()
+				SalesAggregator.toDouble(totals.totalRevenue()),
+				SalesAggregator.toDouble(totals.totalCost()),
+				SalesAggregator.toDouble(totals.totalRevenue() - totals.totalCost()),
+				totals.items((productId, sku, productName, quantity, revenue, cost) -> new DailySalesReportItemDto(
+						productId,
+						sku,
+						productName,
+						Math.toIntExact(quantity),
+						SalesAggregator.toDouble(revenue),
+						SalesAggregator.toDouble(cost),
+						SalesAggregator.toDouble(revenue - cost)
+				))
 		);
 	}
 
 	@QueryMapping
 	@PreAuthorize("isAuthenticated()")
-	@Transactional(readOnly = true)
-	public List<LowStockAlertDto> lowStockAlerts(@Argument int threshold) {
-		Map<Long, Integer> qtyByProduct = inventoryRepository.findAll().stream()
-				.filter(i -> i.getQtyOnHand() > 0)
-				.collect(java.util.stream.Collectors.groupingBy(
-					i -> i.getBatch().getProduct().getId(),
-					java.util.stream.Collectors.summingInt(i -> i.getQtyOnHand())
-				));
+	public SalesReportService.SalesReport salesReport(
+			Authentication authentication,
+			@Argument String from,
+			@Argument String to,
+			@Argument SalesReportService.Granularity granularity
+	) {
+		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
+		return salesReportService.salesReport(LocalDate.parse(from), LocalDate.parse(to), granularity);
+	}
+
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	public List<LowStockAlertDto> lowStockAlerts(@Argument int threshold, @Argument String location) {
+		String loc = location != null && !location.isBlank() ? location.trim() : null;
+		return reportCache.get(
+				ReportCache.key("lowStockAlerts", threshold, loc),
+				List.of(ReportCache.STOCK, ReportCache.CATALOG),
+				() -> loadLowStockAlerts(threshold, loc)
+		);
+	}
 
-		return inventoryRepository.findAll().stream()
-				.map(i -> i.getBatch().getProduct())
-				.distinct()
-				.map(p -> new LowStockAlertDto(
-						p.getId(),
-						p.getSku(),
-						p.getName(),
-						qtyByProduct.getOrDefault(p.getId(), 0),
+	private List<LowStockAlertDto> loadLowStockAlerts(int threshold, String location) {
+		if (location != null) {
+			return productLocationStockRepository.findBelow(location, threshold).stream()
+					.map(s -> new LowStockAlertDto(
+							s.getProduct().getId(),
+							s.getProduct().getSku(),
+							s.getProduct().getName(),
+							s.getQtyOnHand(),
+							threshold
+					))
+					.toList();
+		}
+		return productStockSummaryRepository.findBelow(threshold).stream()
+				.map(s -> new LowStockAlertDto(
+						s.getProductId(),
+						s.getProduct().getSku(),
+						s.getProduct().getName(),
+						s.getQtyOnHand(),
 						threshold
 				))
-				.filter(a -> a.qtyOnHand() < threshold)
-				.sorted(Comparator.comparingInt(LowStockAlertDto::qtyOnHand))
 				.toList();
 	}
 
 	@QueryMapping
 	@PreAuthorize("isAuthenticated()")
-	@Transactional(readOnly = true)
 	public List<LowStockBatchAlertDto> lowStockBatchAlerts(@Argument int threshold) {
-		return inventoryRepository.findAll().stream()
+		return reportCache.get(
+				ReportCache.key("lowStockBatchAlerts", threshold),
+				List.of(ReportCache.STOCK, ReportCache.CATALOG),
+				() -> loadLowStockBatchAlerts(threshold)
+		);
+	}
+
+	private List<LowStockBatchAlertDto> loadLowStockBatchAlerts(int threshold) {
+		return inventoryRepository.findAtOrBelow(threshold).stream()
 				.map(i -> {
 					var batch = i.getBatch();
 					var product = batch.getProduct();
@@ -186,21 +238,25 @@ public class AlertsReportsGraphqlController {
 							threshold
 					);
 				})
-				.filter(a -> a.qtyOnHand() <= threshold)
-				.sorted(Comparator.comparingInt(LowStockBatchAlertDto::qtyOnHand))
 				.toList();
 	}
 
 	@QueryMapping
 	@PreAuthorize("isAuthenticated()")
-	@Transactional(readOnly = true)
 	public InventoryValuationDto inventoryValuation(Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
-		double total = inventoryRepository.findAll().stream()
-				.filter(i -> i.getQtyOnHand() > 0)
-				.mapToDouble(i -> i.getQtyOnHand() * i.getBatch().getCostPrice().doubleValue())
-				.sum();
-		return new InventoryValuationDto(total);
+		return reportCache.get(
+				ReportCache.key("inventoryValuation"),
+				List.of(ReportCache.STOCK),
+				() -> new InventoryValuationDto(inventoryValuationRepository.totalValue().doubleValue())
+		);
+	}
+
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	public ReportCache.Stats reportCacheStats(Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
+		return reportCache.stats();
 	}
 
 	@QueryMapping
@@ -208,19 +264,14 @@ public class AlertsReportsGraphqlController {
 	@Transactional(readOnly = true)
 	public List<StockMovementDto> movementAuditReport(Authentication authentication, @Argument MovementAuditFilter filter) {
 		permissionGuard.require(authentication, PermissionModule.REPORTS, PermissionsService.PermissionAction.VIEW);
-		String type = filter != null ? filter.type() : null;
-		Instant from = filter != null && filter.from() != null && !filter.from().isBlank()
-				? Instant.parse(filter.from())
-				: null;
-		Instant to = filter != null && filter.to() != null && !filter.to().isBlank()
-				? Instant.parse(filter.to())
-				: null;
-
-		return stockMovementRepository.findAll().stream()
-				.filter(mv -> type == null || type.isBlank() || mv.getType().name().equalsIgnoreCase(type.trim()))
-				.filter(mv -> from == null || !mv.getCreatedAt().isBefore(from))
-				.filter(mv -> to == null || !mv.getCreatedAt().isAfter(to))
-				.sorted(Comparator.comparing(mv -> mv.getCreatedAt(), Comparator.reverseOrder()))
+		var criteria = new StockMovementQueryService.MovementCriteria(
+				StockMovementQueryService.parseType(filter != null ? filter.type() : null),
+				null,
+				null,
+				filter != null ? parseInstant(filter.from()) : null,
+				filter != null ? parseInstant(filter.to()) : null
+		);
+		return stockMovementQueryService.find(criteria).stream()
 				.map(StockMovementDto::from)
 				.toList();
 	}
@@ -240,6 +291,16 @@ public class AlertsReportsGraphqlController {
 	) {
 	}
 
+	public record ExpiryBucketDto(
+			String bucket,
+			Integer fromDays,
+			Integer toDays,
+			int batchCount,
+			int quantity,
+			double costValue
+	) {
+	}
+
 	public record LowStockAlertDto(
 			Long productId,
 			String sku,
@@ -0,0 +1,26 @@
+package com.cosmetics.inventory.graphql;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parsing of string arguments shared by the controllers. Bad input surfaces as {@link IllegalArgumentException},
+ * which {@link GraphqlExceptionResolver} reports as a bad request.
+ */
+final class GraphqlArguments {
+	private GraphqlArguments() {
+	}
+
+	static Instant parseInstant(String value) {
+		if (value == null || value.isBlank()) return null;
+		try {
+			return Instant.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid timestamp: " + value.trim());
+		}
+	}
+
+	static String trimToNull(String value) {
+		return value == null || value.isBlank() ? null : value.trim();
+	}
+}
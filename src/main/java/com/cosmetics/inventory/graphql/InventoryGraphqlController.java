@@ -1,11 +1,9 @@
 package com.cosmetics.inventory.graphql;
 
 import com.cosmetics.inventory.inventory.InventoryRepository;
-import com.cosmetics.inventory.inventory.InventoryItemEntity;
-import com.cosmetics.inventory.product.ProductBatchRepository;
-import com.cosmetics.inventory.stockmovement.StockMovementEntity;
-import com.cosmetics.inventory.stockmovement.StockMovementRepository;
-import com.cosmetics.inventory.stockmovement.StockMovementType;
+import com.cosmetics.inventory.inventory.InventoryStockService;
+import com.cosmetics.inventory.inventory.StockReservations;
+import com.cosmetics.inventory.inventory.StockWriteRetry;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
@@ -18,19 +16,22 @@ import com.cosmetics.inventory.user.PermissionGuard;
 import com.cosmetics.inventory.user.PermissionModule;
 import com.cosmetics.inventory.user.PermissionsService;
 
+import java.time.Duration;
 import java.util.List;
 
 @Controller
 public class InventoryGraphqlController {
 	private final InventoryRepository inventoryRepository;
-	private final ProductBatchRepository batchRepository;
-	private final StockMovementRepository stockMovementRepository;
+	private final InventoryStockService inventoryStockService;
+	private final StockWriteRetry stockWriteRetry;
+	private final StockReservations stockReservations;
 	private final PermissionGuard permissionGuard;
 
-	public InventoryGraphqlController(InventoryRepository inventoryRepository, ProductBatchRepository batchRepository, StockMovementRepository stockMovementRepository, PermissionGuard permissionGuard) {
+	public InventoryGraphqlController(InventoryRepository inventoryRepository, InventoryStockService inventoryStockService, StockWriteRetry stockWriteRetry, StockReservations stockReservations, PermissionGuard permissionGuard) {
 		this.inventoryRepository = inventoryRepository;
-		this.batchRepository = batchRepository;
-		this.stockMovementRepository = stockMovementRepository;
+		this.inventoryStockService = inventoryStockService;
+		this.stockWriteRetry = stockWriteRetry;
+		this.stockReservations = stockReservations;
 		this.permissionGuard = permissionGuard;
 	}
 
@@ -60,38 +61,59 @@ public class InventoryGraphqlController {
 
 	@MutationMapping
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
-	@Transactional
 	public InventoryItemDto adjustInventory(@Argument AdjustInventoryInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.INVENTORY, PermissionsService.PermissionAction.EDIT);
-		String location = (input.location() != null && !input.location().isBlank()) ? input.location().trim() : "MAIN";
-		var batch = batchRepository.findById(input.batchId()).orElseThrow();
-
-		InventoryItemEntity inv = inventoryRepository.findByBatchIdAndLocation(batch.getId(), location).orElseGet(() -> {
-			InventoryItemEntity i = new InventoryItemEntity();
-			i.setBatch(batch);
-			i.setLocation(location);
-			i.setQtyOnHand(0);
-			return i;
-		});
-
-		int newQty = inv.getQtyOnHand() + input.delta();
-		if (newQty < 0) {
-			throw new IllegalArgumentException("Adjustment would result in negative quantity");
+		if (input.batchId() == null) {
+			throw new IllegalArgumentException("Batch id is required");
 		}
+		return stockWriteRetry.execute(() -> InventoryItemDto.from(
+				inventoryStockService.adjust(input.batchId(), input.location(), input.delta(), input.note(), authentication)
+		));
+	}
+
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	public StockReservations.Availability stockAvailability(@Argument long productId, @Argument String location, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.INVENTORY, PermissionsService.PermissionAction.VIEW);
+		return stockReservations.availability(productId, locationOf(location));
+	}
+
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	public List<StockReservations.Reservation> cartReservations(@Argument String cartId, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.VIEW);
+		return stockReservations.cart(cartId);
+	}
+
+	@MutationMapping
+	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
+	public StockReservations.Reservation reserveStock(@Argument ReserveStockInput input, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.CREATE);
+		return stockReservations.reserve(
+				input.cartId(),
+				input.productId(),
+				locationOf(input.location()),
+				input.quantity(),
+				input.ttlSeconds() != null ? Duration.ofSeconds(input.ttlSeconds()) : null
+		);
+	}
 
-		inv.setQtyOnHand(newQty);
-		InventoryItemEntity saved = inventoryRepository.save(inv);
+	@MutationMapping
+	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
+	public boolean releaseReservation(@Argument String id, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.CREATE);
+		return stockReservations.release(id);
+	}
 
-		StockMovementEntity mv = new StockMovementEntity();
-		mv.setType(StockMovementType.ADJUSTMENT);
-		mv.setBatch(batch);
-		mv.setQuantity(input.delta());
-		mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
-		String note = (input.note() != null && !input.note().isBlank()) ? input.note().trim() : null;
-		mv.setNote(note != null ? ("Adj @" + location + ": " + note) : ("Adj @" + location));
-		stockMovementRepository.save(mv);
+	@MutationMapping
+	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
+	public int releaseCart(@Argument String cartId, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.CREATE);
+		return stockReservations.releaseCart(cartId);
+	}
 
-		return InventoryItemDto.from(saved);
+	private static String locationOf(String location) {
+		return (location != null && !location.isBlank()) ? location.trim() : "MAIN";
 	}
 
 	public record InventoryFilter(String query, Long productId, Boolean includeZero) {
@@ -99,4 +121,7 @@ public class InventoryGraphqlController {
 
 	public record AdjustInventoryInput(Long batchId, String location, int delta, String note) {
 	}
+
+	public record ReserveStockInput(String cartId, long productId, String location, int quantity, Integer ttlSeconds) {
+	}
 }
@@ -44,6 +44,17 @@ public class MySalesGraphqlController {
 		return mySalesRepository.findById(id).map(MySaleDto::from).orElse(null);
 	}
 
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	@Transactional(readOnly = true)
+	public MySaleDto mySaleByReference(@Argument String reference, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.MY_SALES, PermissionsService.PermissionAction.VIEW);
+		if (reference == null || reference.isBlank()) {
+			throw new IllegalArgumentException("Reference is required");
+		}
+		return mySalesRepository.findLatestByReferenceWithLines(reference.trim()).map(MySaleDto::from).orElse(null);
+	}
+
 	@MutationMapping
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public MySaleDto createMySale(@Argument CreateMySaleInput input, Authentication authentication) {
@@ -1,5 +1,6 @@
 package com.cosmetics.inventory.graphql;
 
+import com.cosmetics.inventory.inventory.StockWriteRetry;
 import com.cosmetics.inventory.product.ProductBatchEntity;
 import com.cosmetics.inventory.product.ProductBatchRepository;
 import com.cosmetics.inventory.product.ProductEntity;
@@ -24,12 +25,14 @@ public class ProductGraphqlController {
 	private final ProductService productService;
 	private final ProductRepository productRepository;
 	private final ProductBatchRepository batchRepository;
+	private final StockWriteRetry stockWriteRetry;
 	private final PermissionGuard permissionGuard;
 
-	public ProductGraphqlController(ProductService productService, ProductRepository productRepository, ProductBatchRepository batchRepository, PermissionGuard permissionGuard) {
+	public ProductGraphqlController(ProductService productService, ProductRepository productRepository, ProductBatchRepository batchRepository, StockWriteRetry stockWriteRetry, PermissionGuard permissionGuard) {
 		this.productService = productService;
 		this.productRepository = productRepository;
 		this.batchRepository = batchRepository;
+		this.stockWriteRetry = stockWriteRetry;
 		this.permissionGuard = permissionGuard;
 	}
 
@@ -95,14 +98,14 @@ public class ProductGraphqlController {
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public ProductBatchEntity createBatch(@Argument CreateBatchInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.PRODUCTS, PermissionsService.PermissionAction.CREATE);
-		return productService.createBatch(new ProductService.CreateBatchCommand(
+		return stockWriteRetry.execute(() -> productService.createBatch(new ProductService.CreateBatchCommand(
 				input.productId(),
 				input.batchNumber(),
 				input.expiryDate(),
 				input.costPrice(),
 				input.quantityReceived(),
 				input.location()
-		), authentication);
+		), authentication));
 	}
 
 	@MutationMapping
@@ -0,0 +1,29 @@
+package com.cosmetics.inventory.graphql;
+
+import com.cosmetics.inventory.report.ProfitAndLossService;
+import com.cosmetics.inventory.user.PermissionGuard;
+import com.cosmetics.inventory.user.PermissionModule;
+import com.cosmetics.inventory.user.PermissionsService;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+@Controller
+public class ProfitAndLossGraphqlController {
+	private final ProfitAndLossService profitAndLossService;
+	private final PermissionGuard permissionGuard;
+
+	public ProfitAndLossGraphqlController(ProfitAndLossService profitAndLossService, PermissionGuard permissionGuard) {
+		this.profitAndLossService = profitAndLossService;
+		this.permissionGuard = permissionGuard;
+	}
+
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	public ProfitAndLossService.ProfitAndLoss profitAndLoss(Authentication authentication, @Argument String from, @Argument String to) {
+		permissionGuard.require(authentication, PermissionModule.PROFIT_MANAGEMENT, PermissionsService.PermissionAction.VIEW);
+		return profitAndLossService.profitAndLoss(from, to);
+	}
+}
@@ -1,5 +1,7 @@
 package com.cosmetics.inventory.graphql;
 
+import com.cosmetics.inventory.inventory.StockWriteRetry;
+import com.cosmetics.inventory.purchasing.PurchaseOrderQueryService;
 import com.cosmetics.inventory.purchasing.PurchaseOrderRepository;
 import com.cosmetics.inventory.purchasing.PurchasingService;
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -14,17 +16,25 @@ import com.cosmetics.inventory.user.PermissionGuard;
 import com.cosmetics.inventory.user.PermissionModule;
 import com.cosmetics.inventory.user.PermissionsService;
 
+import java.math.BigDecimal;
 import java.util.List;
 
+import static com.cosmetics.inventory.graphql.GraphqlArguments.parseInstant;
+import static com.cosmetics.inventory.graphql.GraphqlArguments.trimToNull;
+
 @Controller
 public class PurchasingGraphqlController {
 	private final PurchasingService purchasingService;
 	private final PurchaseOrderRepository purchaseOrderRepository;
+	private final PurchaseOrderQueryService purchaseOrderQueryService;
+	private final StockWriteRetry stockWriteRetry;
 	private final PermissionGuard permissionGuard;
 
-	public PurchasingGraphqlController(PurchasingService purchasingService, PurchaseOrderRepository purchaseOrderRepository, PermissionGuard permissionGuard) {
+	public PurchasingGraphqlController(PurchasingService purchasingService, PurchaseOrderRepository purchaseOrderRepository, PurchaseOrderQueryService purchaseOrderQueryService, StockWriteRetry stockWriteRetry, PermissionGuard permissionGuard) {
 		this.purchasingService = purchasingService;
 		this.purchaseOrderRepository = purchaseOrderRepository;
+		this.purchaseOrderQueryService = purchaseOrderQueryService;
+		this.stockWriteRetry = stockWriteRetry;
 		this.permissionGuard = permissionGuard;
 	}
 
@@ -36,11 +46,36 @@ public class PurchasingGraphqlController {
 		return purchaseOrderRepository.findAll().stream().map(PurchaseOrderDto::from).toList();
 	}
 
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	@Transactional(readOnly = true)
+	public PurchaseOrderConnection purchaseOrderPage(@Argument PurchaseOrderPageFilter filter, @Argument Integer first, @Argument String after, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.PURCHASING, PermissionsService.PermissionAction.VIEW);
+		var page = purchaseOrderQueryService.findPage(toCriteria(filter), first, after);
+		return new PurchaseOrderConnection(
+				page.items().stream().map(PurchaseOrderDto::from).toList(),
+				page.nextCursor(),
+				page.hasMore()
+		);
+	}
+
+	private static PurchaseOrderQueryService.PurchaseOrderCriteria toCriteria(PurchaseOrderPageFilter filter) {
+		if (filter == null) {
+			return new PurchaseOrderQueryService.PurchaseOrderCriteria(null, null, null, null);
+		}
+		return new PurchaseOrderQueryService.PurchaseOrderCriteria(
+				parseInstant(filter.from()),
+				parseInstant(filter.to()),
+				trimToNull(filter.supplier()),
+				trimToNull(filter.invoiceNumber())
+		);
+	}
+
 	@MutationMapping
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public PurchaseOrderDto receivePurchase(@Argument ReceivePurchaseInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.PURCHASING, PermissionsService.PermissionAction.CREATE);
-		var po = purchasingService.receivePurchase(
+		var po = stockWriteRetry.execute(() -> purchasingService.receivePurchase(
 				new PurchasingService.ReceivePurchaseCommand(
 						input.supplier(),
 						input.invoiceNumber(),
@@ -48,12 +83,12 @@ public class PurchasingGraphqlController {
 								l.productId(),
 								l.batchNumber(),
 								l.expiryDate(),
-								l.costPrice(),
+								BigDecimal.valueOf(l.costPrice()),
 								l.quantityReceived()
 						)).toList()
 				),
 			authentication
-		);
+		));
 		return PurchaseOrderDto.from(po);
 	}
 
@@ -61,7 +96,7 @@ public class PurchasingGraphqlController {
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public PurchaseOrderDto updatePurchase(@Argument UpdatePurchaseInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.PURCHASING, PermissionsService.PermissionAction.EDIT);
-		var po = purchasingService.updatePurchase(
+		var po = stockWriteRetry.execute(() -> purchasingService.updatePurchase(
 				new PurchasingService.UpdatePurchaseCommand(
 						input.id(),
 						input.supplier(),
@@ -70,12 +105,12 @@ public class PurchasingGraphqlController {
 								l.productId(),
 								l.batchNumber(),
 								l.expiryDate(),
-								l.costPrice(),
+								BigDecimal.valueOf(l.costPrice()),
 								l.quantityReceived()
 						)).toList()
 				),
 			authentication
-		);
+		));
 		return PurchaseOrderDto.from(po);
 	}
 
@@ -83,7 +118,7 @@ public class PurchasingGraphqlController {
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public boolean deletePurchase(@Argument DeletePurchaseInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.PURCHASING, PermissionsService.PermissionAction.DELETE);
-		return purchasingService.deletePurchase(input.id(), authentication);
+		return stockWriteRetry.execute(() -> purchasingService.deletePurchase(input.id(), authentication));
 	}
 
 	public record ReceivePurchaseInput(String supplier, String invoiceNumber, List<ReceivePurchaseLineInput> lines) {
@@ -98,4 +133,10 @@ public class PurchasingGraphqlController {
 
 	public record DeletePurchaseInput(long id) {
 	}
+
+	public record PurchaseOrderPageFilter(String from, String to, String supplier, String invoiceNumber) {
+	}
+
+	public record PurchaseOrderConnection(List<PurchaseOrderDto> items, String nextCursor, boolean hasMore) {
+	}
 }
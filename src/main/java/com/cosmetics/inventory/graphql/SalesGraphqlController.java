@@ -1,5 +1,9 @@
 package com.cosmetics.inventory.graphql;
 
+import com.cosmetics.inventory.inventory.StockWriteRetry;
+import com.cosmetics.inventory.sales.PosSyncService;
+import com.cosmetics.inventory.sales.SalesOrderEntity;
+import com.cosmetics.inventory.sales.SalesOrderQueryService;
 import com.cosmetics.inventory.sales.SalesOrderRepository;
 import com.cosmetics.inventory.sales.SalesService;
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -16,15 +20,24 @@ import com.cosmetics.inventory.user.PermissionsService;
 
 import java.util.List;
 
+import static com.cosmetics.inventory.graphql.GraphqlArguments.parseInstant;
+import static com.cosmetics.inventory.graphql.GraphqlArguments.trimToNull;
+
 @Controller
 public class SalesGraphqlController {
 	private final SalesService salesService;
 	private final SalesOrderRepository salesOrderRepository;
+	private final SalesOrderQueryService salesOrderQueryService;
+	private final PosSyncService posSyncService;
+	private final StockWriteRetry stockWriteRetry;
 	private final PermissionGuard permissionGuard;
 
-	public SalesGraphqlController(SalesService salesService, SalesOrderRepository salesOrderRepository, PermissionGuard permissionGuard) {
+	public SalesGraphqlController(SalesService salesService, SalesOrderRepository salesOrderRepository, SalesOrderQueryService salesOrderQueryService, PosSyncService posSyncService, StockWriteRetry stockWriteRetry, PermissionGuard permissionGuard) {
 		this.salesService = salesService;
 		this.salesOrderRepository = salesOrderRepository;
+		this.salesOrderQueryService = salesOrderQueryService;
+		this.posSyncService = posSyncService;
+		this.stockWriteRetry = stockWriteRetry;
 		this.permissionGuard = permissionGuard;
 	}
 
@@ -36,11 +49,46 @@ public class SalesGraphqlController {
 		return salesOrderRepository.findAll().stream().map(SalesOrderDto::from).toList();
 	}
 
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	@Transactional(readOnly = true)
+	public SalesOrderConnection salesOrderPage(@Argument SalesOrderPageFilter filter, @Argument Integer first, @Argument String after, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.VIEW);
+		var page = salesOrderQueryService.findPage(toCriteria(filter), first, after);
+		return new SalesOrderConnection(
+				page.items().stream().map(SalesOrderDto::from).toList(),
+				page.nextCursor(),
+				page.hasMore()
+		);
+	}
+
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	@Transactional(readOnly = true)
+	public SalesOrderDto saleByReference(@Argument String reference, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.VIEW);
+		SalesOrderEntity so = salesOrderQueryService.findByReference(reference);
+		return so != null ? SalesOrderDto.from(so) : null;
+	}
+
+	static SalesOrderQueryService.SalesOrderCriteria toCriteria(SalesOrderPageFilter filter) {
+		if (filter == null) {
+			return new SalesOrderQueryService.SalesOrderCriteria(null, null, null, null, null);
+		}
+		return new SalesOrderQueryService.SalesOrderCriteria(
+				parseInstant(filter.from()),
+				parseInstant(filter.to()),
+				trimToNull(filter.soldBy()),
+				trimToNull(filter.customer()),
+				trimToNull(filter.referenceNumber())
+		);
+	}
+
 	@MutationMapping
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public SalesOrderDto createSale(@Argument CreateSaleInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.CREATE);
-		var so = salesService.createSale(
+		var so = stockWriteRetry.execute(() -> salesService.createSale(
 				new SalesService.CreateSaleCommand(
 						input.customer(),
 						input.referenceNumber(),
@@ -49,18 +97,63 @@ public class SalesGraphqlController {
 								l.quantity(),
 								l.unitPrice(),
 								l.location()
-						)).toList()
+						)).toList(),
+						input.cartId()
 				),
 			authentication
-		);
+		));
 		return SalesOrderDto.from(so);
 	}
 
+	@MutationMapping
+	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
+	public List<SalesService.BulkSaleResult> createSales(@Argument List<CreateSaleInput> inputs, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.CREATE);
+		return salesService.createSales(
+				inputs.stream().map(input -> new SalesService.CreateSaleCommand(
+						input.customer(),
+						input.referenceNumber(),
+						input.lines().stream().map(l -> new SalesService.CreateSaleLineCommand(
+								l.productId(),
+								l.quantity(),
+								l.unitPrice(),
+								l.location()
+						)).toList(),
+						input.cartId()
+				)).toList(),
+				authentication
+		);
+	}
+
+	@MutationMapping
+	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
+	public PosSyncService.PosSyncReport syncPosSales(@Argument PosSyncInput input, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.CREATE);
+		return posSyncService.ingest(
+				input.terminalId(),
+				input.sales().stream().map(s -> new PosSyncService.QueuedSaleCommand(
+						s.sequence(),
+						parseInstant(s.clientSoldAt()),
+						new SalesService.CreateSaleCommand(
+								s.customer(),
+								s.referenceNumber(),
+								s.lines().stream().map(l -> new SalesService.CreateSaleLineCommand(
+										l.productId(),
+										l.quantity(),
+										l.unitPrice(),
+										l.location()
+								)).toList()
+						)
+				)).toList(),
+				authentication
+		);
+	}
+
 	@MutationMapping
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public SalesOrderDto updateSale(@Argument UpdateSaleInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.EDIT);
-		var so = salesService.updateSale(
+		var so = stockWriteRetry.execute(() -> salesService.updateSale(
 				new SalesService.UpdateSaleCommand(
 						input.id(),
 						input.customer(),
@@ -73,18 +166,37 @@ public class SalesGraphqlController {
 						)).toList()
 				),
 			authentication
-		);
+		));
 		return SalesOrderDto.from(so);
 	}
 
+	@MutationMapping
+	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
+	public SalesOrderDto returnSaleItems(@Argument long saleId, @Argument List<ReturnSaleLineInput> lines, Authentication authentication) {
+		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.EDIT);
+		return stockWriteRetry.execute(() -> SalesOrderDto.from(salesService.returnSaleItems(
+				new SalesService.ReturnSaleItemsCommand(
+						saleId,
+						lines.stream().map(l -> new SalesService.ReturnSaleLineCommand(l.lineId(), l.quantity())).toList()
+				),
+				authentication
+		)));
+	}
+
 	@MutationMapping
 	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
 	public boolean deleteSale(@Argument DeleteSaleInput input, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.SALES, PermissionsService.PermissionAction.DELETE);
-		return salesService.deleteSale(input.id(), authentication);
+		return stockWriteRetry.execute(() -> salesService.deleteSale(input.id(), authentication));
+	}
+
+	public record SalesOrderPageFilter(String from, String to, String soldBy, String customer, String referenceNumber) {
+	}
+
+	public record SalesOrderConnection(List<SalesOrderDto> items, String nextCursor, boolean hasMore) {
 	}
 
-	public record CreateSaleInput(String customer, String referenceNumber, List<CreateSaleLineInput> lines) {
+	public record CreateSaleInput(String customer, String referenceNumber, List<CreateSaleLineInput> lines, String cartId) {
 	}
 
 	public record CreateSaleLineInput(long productId, int quantity, double unitPrice, String location) {
@@ -95,4 +207,13 @@ public class SalesGraphqlController {
 
 	public record DeleteSaleInput(long id) {
 	}
+
+	public record ReturnSaleLineInput(long lineId, int quantity) {
+	}
+
+	public record PosSyncInput(String terminalId, List<QueuedSaleInput> sales) {
+	}
+
+	public record QueuedSaleInput(long sequence, String clientSoldAt, String customer, String referenceNumber, List<CreateSaleLineInput> lines) {
+	}
 }
@@ -8,6 +8,7 @@ public record SalesOrderDto(
 		Long id,
 		String customer,
 		String referenceNumber,
+		String receiptNumber,
 		String soldAt,
 		String soldBy,
 		List<SalesOrderLineDto> lines
@@ -17,6 +18,7 @@ public record SalesOrderDto(
 				so.getId(),
 				so.getCustomer(),
 				so.getReferenceNumber(),
+				so.getReceiptNumber(),
 				so.getSoldAt().toString(),
 				so.getSoldBy(),
 				so.getLines().stream().map(SalesOrderLineDto::from).toList()
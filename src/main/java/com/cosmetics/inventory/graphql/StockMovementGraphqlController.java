@@ -1,6 +1,6 @@
 package com.cosmetics.inventory.graphql;
 
-import com.cosmetics.inventory.stockmovement.StockMovementRepository;
+import com.cosmetics.inventory.stockmovement.StockMovementQueryService;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,13 +14,15 @@ import com.cosmetics.inventory.user.PermissionsService;
 
 import java.util.List;
 
+import static com.cosmetics.inventory.graphql.GraphqlArguments.parseInstant;
+
 @Controller
 public class StockMovementGraphqlController {
-	private final StockMovementRepository stockMovementRepository;
+	private final StockMovementQueryService stockMovementQueryService;
 	private final PermissionGuard permissionGuard;
 
-	public StockMovementGraphqlController(StockMovementRepository stockMovementRepository, PermissionGuard permissionGuard) {
-		this.stockMovementRepository = stockMovementRepository;
+	public StockMovementGraphqlController(StockMovementQueryService stockMovementQueryService, PermissionGuard permissionGuard) {
+		this.stockMovementQueryService = stockMovementQueryService;
 		this.permissionGuard = permissionGuard;
 	}
 
@@ -29,18 +31,55 @@ public class StockMovementGraphqlController {
 	@Transactional(readOnly = true)
 	public List<StockMovementDto> stockMovements(@Argument StockMovementFilter filter, Authentication authentication) {
 		permissionGuard.require(authentication, PermissionModule.STOCK_MOVEMENTS, PermissionsService.PermissionAction.VIEW);
-		String type = filter != null ? filter.type() : null;
-		Long productId = filter != null ? filter.productId() : null;
-		Long batchId = filter != null ? filter.batchId() : null;
-
-		return stockMovementRepository.findAll().stream()
-				.filter(mv -> type == null || type.isBlank() || mv.getType().name().equalsIgnoreCase(type.trim()))
-				.filter(mv -> productId == null || mv.getBatch().getProduct().getId().equals(productId))
-				.filter(mv -> batchId == null || mv.getBatch().getId().equals(batchId))
+		var criteria = new StockMovementQueryService.MovementCriteria(
+				StockMovementQueryService.parseType(filter != null ? filter.type() : null),
+				filter != null ? filter.productId() : null,
+				filter != null ? filter.batchId() : null,
+				null,
+				null
+		);
+		return stockMovementQueryService.find(criteria).stream()
 				.map(StockMovementDto::from)
 				.toList();
 	}
 
+	@QueryMapping
+	@PreAuthorize("isAuthenticated()")
+	@Transactional(readOnly = true)
+	public StockMovementConnection stockMovementPage(
+			@Argument StockMovementPageFilter filter,
+			@Argument Integer first,
+			@Argument String after,
+			Authentication authentication
+	) {
+		permissionGuard.require(authentication, PermissionModule.STOCK_MOVEMENTS, PermissionsService.PermissionAction.VIEW);
+		var page = stockMovementQueryService.findPage(toCriteria(filter), first, after);
+		return new StockMovementConnection(
+				page.items().stream().map(StockMovementDto::from).toList(),
+				page.nextCursor(),
+				page.hasMore()
+		);
+	}
+
+	static StockMovementQueryService.MovementCriteria toCriteria(StockMovementPageFilter filter) {
+		if (filter == null) {
+			return new StockMovementQueryService.MovementCriteria(null, null, null, null, null);
+		}
+		return new StockMovementQueryService.MovementCriteria(
+				StockMovementQueryService.parseType(filter.type()),
+				filter.productId(),
+				filter.batchId(),
+				parseInstant(filter.from()),
+				parseInstant(filter.to())
+		);
+	}
+
 	public record StockMovementFilter(String type, Long productId, Long batchId) {
 	}
+
+	public record StockMovementPageFilter(String type, Long productId, Long batchId, String from, String to) {
+	}
+
+	public record StockMovementConnection(List<StockMovementDto> items, String nextCursor, boolean hasMore) {
+	}
 }
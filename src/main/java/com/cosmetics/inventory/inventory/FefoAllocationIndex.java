@@ -0,0 +1,178 @@
+package com.cosmetics.inventory.inventory;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory view of sellable stock per (product, location), kept in FEFO order so checkouts can decide which
+ * batches to take without querying. It is only a planner: the database stays authoritative and every planned take
+ * is still applied with a conditional update, so a stale plan can fail but never oversell.
+ * <p>
+ * Rows are written through after commit with their row version; an older version never overwrites a newer one,
+ * which makes startup warm-up and concurrent write-through safe to interleave.
+ */
+@Component
+public class FefoAllocationIndex {
+	static final int STRIPES = 64;
+
+	/**
+	 * Allocation order within a shelf. It is also the order in which rows are locked, the same one
+	 * {@link InventoryRepository#lockSellable} uses, so takes planned here never lock rows in a conflicting order.
+	 */
+	public static final Comparator<StockRow> FEFO = Comparator
+			.comparing(StockRow::expiryDate)
+			.thenComparing(StockRow::batchCreatedAt)
+			.thenComparingLong(StockRow::batchId)
+			.thenComparingLong(StockRow::inventoryId);
+
+	private final Map<ShelfKey, Shelf> shelves = new ConcurrentHashMap<>();
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+	private volatile boolean ready;
+
+	public FefoAllocationIndex() {
+		for (int i = 0; i < STRIPES; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	void markReady() {
+		ready = true;
+	}
+
+	public void apply(Collection<StockRow> rows) {
+		for (StockRow row : rows) {
+			ShelfKey key = new ShelfKey(row.productId(), row.location());
+			ReentrantLock lock = lockFor(key);
+			lock.lock();
+			try {
+				shelves.computeIfAbsent(key, k -> new Shelf()).put(row);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Plans taking {@code quantity} from non-expired batches in FEFO order. {@code planned} carries what earlier
+	 * lines of the same basket already claimed per inventory row and is updated with this plan.
+	 *
+	 * @return the takes, or {@code null} when the index is not warm or does not see enough stock
+	 */
+	public List<Allocation> allocate(long productId, String location, int quantity, LocalDate today, Map<Long, Integer> planned) {
+		if (!ready) return null;
+		ShelfKey key = new ShelfKey(productId, location);
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			Shelf shelf = shelves.get(key);
+			if (shelf == null) return null;
+
+			List<Allocation> result = new ArrayList<>();
+			int remaining = quantity;
+			for (StockRow row : shelf.sellable) {
+				if (remaining <= 0) break;
+				if (row.expiryDate().isBefore(today)) continue;
+				int available = row.qtyOnHand() - planned.getOrDefault(row.inventoryId(), 0);
+				if (available <= 0) continue;
+				int take = Math.min(available, remaining);
+				result.add(new Allocation(row, take));
+				remaining -= take;
+			}
+			if (remaining > 0) return null;
+			for (Allocation a : result) {
+				planned.merge(a.inventoryId(), a.quantity(), Integer::sum);
+			}
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Non-expired quantity on hand for a (product, location), or {@code -1} when the index is not warm yet.
+	 */
+	public int available(long productId, String location, LocalDate today) {
+		if (!ready) return -1;
+		ShelfKey key = new ShelfKey(productId, location);
+		ReentrantLock lock = lockFor(key);
+		lock.lock();
+		try {
+			Shelf shelf = shelves.get(key);
+			if (shelf == null) return 0;
+			int total = 0;
+			for (StockRow row : shelf.sellable) {
+				if (!row.expiryDate().isBefore(today)) total += row.qtyOnHand();
+			}
+			return total;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private ReentrantLock lockFor(ShelfKey key) {
+		return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+	}
+
+	private static final class Shelf {
+		private final TreeSet<StockRow> sellable = new TreeSet<>(FEFO);
+		private final Map<Long, StockRow> byInventoryId = new HashMap<>();
+
+		private void put(StockRow row) {
+			StockRow current = byInventoryId.get(row.inventoryId());
+			if (current != null) {
+				if (current.version() > row.version()) return;
+				sellable.remove(current);
+			}
+			// Emptied rows stay in the id map so a late, older snapshot of them cannot bring stock back.
+			byInventoryId.put(row.inventoryId(), row);
+			if (row.qtyOnHand() > 0) {
+				sellable.add(row);
+			}
+		}
+	}
+
+	private record ShelfKey(long productId, String location) {
+	}
+
+	public record StockRow(
+			long inventoryId,
+			long productId,
+			long batchId,
+			String location,
+			LocalDate expiryDate,
+			Instant batchCreatedAt,
+			BigDecimal costPrice,
+			int qtyOnHand,
+			long version
+	) {
+		public StockRow withStock(int qtyOnHand, long version) {
+			return new StockRow(inventoryId, productId, batchId, location, expiryDate, batchCreatedAt, costPrice, qtyOnHand, version);
+		}
+	}
+
+	public record Allocation(StockRow row, int quantity) {
+		public long inventoryId() {
+			return row.inventoryId();
+		}
+
+		public long batchId() {
+			return row.batchId();
+		}
+	}
+}
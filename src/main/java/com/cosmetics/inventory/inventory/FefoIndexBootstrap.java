@@ -0,0 +1,58 @@
+package com.cosmetics.inventory.inventory;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class FefoIndexBootstrap implements ApplicationRunner {
+	private final DataSource dataSource;
+	private final FefoAllocationIndex fefoAllocationIndex;
+	private final TransactionTemplate readOnlyTx;
+
+	public FefoIndexBootstrap(DataSource dataSource, FefoAllocationIndex fefoAllocationIndex, PlatformTransactionManager transactionManager) {
+		this.dataSource = dataSource;
+		this.fefoAllocationIndex = fefoAllocationIndex;
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		String sql = "SELECT i.id, b.product_id, i.batch_id, i.location, b.expiry_date, b.created_at, b.cost_price, " +
+				"i.qty_on_hand, i.version FROM inventory i JOIN product_batches b ON b.id = i.batch_id " +
+				"WHERE i.qty_on_hand > 0 AND b.expiry_date >= ?";
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.setFetchSize(1000);
+		List<FefoAllocationIndex.StockRow> chunk = new ArrayList<>();
+		// The PostgreSQL driver only uses a server-side cursor (honouring the fetch size) inside a transaction.
+		readOnlyTx.executeWithoutResult(status -> jdbc.query(sql, rs -> {
+			chunk.add(new FefoAllocationIndex.StockRow(
+					rs.getLong(1),
+					rs.getLong(2),
+					rs.getLong(3),
+					rs.getString(4),
+					rs.getObject(5, LocalDate.class),
+					rs.getTimestamp(6).toInstant(),
+					rs.getBigDecimal(7),
+					rs.getInt(8),
+					rs.getLong(9)
+			));
+			if (chunk.size() == 1000) {
+				fefoAllocationIndex.apply(chunk);
+				chunk.clear();
+			}
+		}, LocalDate.now()));
+		fefoAllocationIndex.apply(chunk);
+		fefoAllocationIndex.markReady();
+	}
+}
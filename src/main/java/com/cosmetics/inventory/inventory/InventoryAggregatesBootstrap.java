@@ -0,0 +1,79 @@
+package com.cosmetics.inventory.inventory;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fills the stock aggregate tables from the inventory rows when they are empty, e.g. on a new database. Start the
+ * application with {@code --rebuild-inventory-aggregates} to rebuild them all from scratch.
+ */
+@Component
+public class InventoryAggregatesBootstrap implements ApplicationRunner {
+	private final DataSource dataSource;
+
+	public InventoryAggregatesBootstrap(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		boolean rebuild = args.containsOption("rebuild-inventory-aggregates");
+		String sqlLock = "LOCK TABLE inventory IN SHARE MODE";
+		String sqlValuationExists = "SELECT EXISTS (SELECT 1 FROM inventory_valuation)";
+		String sqlProductSummaryExists = "SELECT EXISTS (SELECT 1 FROM product_stock_summary)";
+		String sqlLocationSummaryExists = "SELECT EXISTS (SELECT 1 FROM product_location_stock)";
+		String sqlClearValuation = "DELETE FROM inventory_valuation";
+		String sqlRebuildValuation = "INSERT INTO inventory_valuation (slot, total_value) " +
+				"SELECT 0, COALESCE(SUM(i.qty_on_hand * b.cost_price), 0) " +
+				"FROM inventory i JOIN product_batches b ON b.id = i.batch_id " +
+				"WHERE i.qty_on_hand > 0";
+		String sqlClearProductSummary = "DELETE FROM product_stock_summary";
+		String sqlRebuildProductSummary = "INSERT INTO product_stock_summary (product_id, qty_on_hand) " +
+				"SELECT b.product_id, COALESCE(SUM(GREATEST(i.qty_on_hand, 0)), 0) " +
+				"FROM inventory i JOIN product_batches b ON b.id = i.batch_id " +
+				"GROUP BY b.product_id";
+		String sqlClearLocationSummary = "DELETE FROM product_location_stock";
+		String sqlRebuildLocationSummary = "INSERT INTO product_location_stock (product_id, location, qty_on_hand) " +
+				"SELECT b.product_id, i.location, COALESCE(SUM(GREATEST(i.qty_on_hand, 0)), 0) " +
+				"FROM inventory i JOIN product_batches b ON b.id = i.batch_id " +
+				"GROUP BY b.product_id, i.location";
+
+		try (Connection c = dataSource.getConnection()) {
+			c.setAutoCommit(false);
+			try (Statement s = c.createStatement()) {
+				s.execute(sqlLock);
+				if (rebuild || !exists(s, sqlValuationExists)) {
+					s.execute(sqlClearValuation);
+					s.execute(sqlRebuildValuation);
+				}
+				if (rebuild || !exists(s, sqlProductSummaryExists)) {
+					s.execute(sqlClearProductSummary);
+					s.execute(sqlRebuildProductSummary);
+				}
+				if (rebuild || !exists(s, sqlLocationSummaryExists)) {
+					s.execute(sqlClearLocationSummary);
+					s.execute(sqlRebuildLocationSummary);
+				}
+				c.commit();
+			} catch (Exception e) {
+				c.rollback();
+				throw e;
+			} finally {
+				c.setAutoCommit(true);
+			}
+		}
+	}
+
+	private static boolean exists(Statement s, String sql) throws SQLException {
+		try (ResultSet rs = s.executeQuery(sql)) {
+			return rs.next() && rs.getBoolean(1);
+		}
+	}
+}
@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "inventory", uniqueConstraints = {
 		@UniqueConstraint(name = "uq_inventory_batch_location", columnNames = {"batch_id", "location"})
+}, indexes = {
+		@Index(name = "idx_inventory_qty_on_hand", columnList = "qty_on_hand")
 })
 public class InventoryItemEntity {
 	@Id
@@ -22,6 +24,10 @@ public class InventoryItemEntity {
 	@Column(name = "qty_on_hand", nullable = false)
 	private int qtyOnHand;
 
+	@Version
+	@Column(nullable = false, columnDefinition = "bigint default 0")
+	private long version;
+
 	public Long getId() {
 		return id;
 	}
@@ -49,4 +55,13 @@ public class InventoryItemEntity {
 	public void setQtyOnHand(int qtyOnHand) {
 		this.qtyOnHand = qtyOnHand;
 	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	void syncStock(int qtyOnHand, long version) {
+		this.qtyOnHand = qtyOnHand;
+		this.version = version;
+	}
 }
@@ -1,9 +1,82 @@
 package com.cosmetics.inventory.inventory;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryRepository extends JpaRepository<InventoryItemEntity, Long> {
 	Optional<InventoryItemEntity> findByBatchIdAndLocation(Long batchId, String location);
+
+	@Modifying
+	@Query("delete from InventoryItemEntity i where i.batch.id in :batchIds and i.qtyOnHand = 0")
+	int deleteEmptyByBatchIdIn(@Param("batchIds") Collection<Long> batchIds);
+
+	/**
+	 * Locks every sellable row for the given products and locations in FEFO order. Rows are locked in that one
+	 * global order, so two checkouts over overlapping products cannot deadlock each other.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select i from InventoryItemEntity i join fetch i.batch b " +
+			"where b.product.id in :productIds and i.location in :locations and i.qtyOnHand > 0 and b.expiryDate >= :today " +
+			"order by b.expiryDate asc, b.createdAt asc, b.id asc, i.id asc")
+	List<InventoryItemEntity> lockSellable(
+			@Param("productIds") Collection<Long> productIds,
+			@Param("locations") Collection<String> locations,
+			@Param("today") LocalDate today
+	);
+
+	/**
+	 * Locks the given batches' rows at one location, in the same global order as {@link #lockSellable}.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select i from InventoryItemEntity i join fetch i.batch b " +
+			"where b.id in :batchIds and i.location = :location " +
+			"order by b.expiryDate asc, b.createdAt asc, b.id asc, i.id asc")
+	List<InventoryItemEntity> lockByBatchIdIn(@Param("batchIds") Collection<Long> batchIds, @Param("location") String location);
+
+	@Query("select i from InventoryItemEntity i join fetch i.batch b join fetch b.product " +
+			"where i.qtyOnHand > 0 and b.expiryDate <= :until order by b.expiryDate asc, b.id asc")
+	List<InventoryItemEntity> findInStockExpiringOnOrBefore(@Param("until") LocalDate until);
+
+	@Query("select i from InventoryItemEntity i join fetch i.batch b join fetch b.product " +
+			"where i.qtyOnHand <= :threshold order by i.qtyOnHand asc, i.id asc")
+	List<InventoryItemEntity> findAtOrBelow(@Param("threshold") int threshold);
+
+	@Query(value = "select x.bucket as bucket, count(distinct x.batch_id) as batchCount, " +
+			"coalesce(sum(x.qty_on_hand), 0) as quantity, coalesce(sum(x.qty_on_hand * x.cost_price), 0) as costValue " +
+			"from (select case " +
+			"when b.expiry_date < :today then 'EXPIRED' " +
+			"when b.expiry_date <= :week then 'DAYS_0_7' " +
+			"when b.expiry_date <= :month then 'DAYS_8_30' " +
+			"else 'DAYS_31_90' end as bucket, " +
+			"i.batch_id, i.qty_on_hand, b.cost_price " +
+			"from inventory i join product_batches b on b.id = i.batch_id " +
+			"where i.qty_on_hand > 0 and b.expiry_date <= :quarter) x " +
+			"group by x.bucket",
+			nativeQuery = true)
+	List<ExpiryBucketRow> summarizeExpiryBuckets(
+			@Param("today") LocalDate today,
+			@Param("week") LocalDate week,
+			@Param("month") LocalDate month,
+			@Param("quarter") LocalDate quarter
+	);
+
+	interface ExpiryBucketRow {
+		String getBucket();
+
+		Long getBatchCount();
+
+		Long getQuantity();
+
+		BigDecimal getCostValue();
+	}
 }
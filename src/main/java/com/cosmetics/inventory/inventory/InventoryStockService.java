@@ -0,0 +1,438 @@
+package com.cosmetics.inventory.inventory;
+
+import com.cosmetics.inventory.product.ProductBatchEntity;
+import com.cosmetics.inventory.product.ProductBatchRepository;
+import com.cosmetics.inventory.report.ReportCache;
+import com.cosmetics.inventory.stockmovement.StockMovementEntity;
+import com.cosmetics.inventory.stockmovement.StockMovementRepository;
+import com.cosmetics.inventory.stockmovement.StockMovementType;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Single entry point for changing {@code inventory.qty_on_hand}. Existing rows are changed with one conditional
+ * update that cannot take stock below zero, so concurrent checkouts never lose an update or oversell. Every change
+ * is also folded into the running aggregates, which are written once per transaction just before commit.
+ */
+@Service
+public class InventoryStockService {
+	/**
+	 * The valuation total is spread over a few rows so concurrent checkouts do not queue on one counter.
+	 */
+	static final int VALUATION_SLOTS = 8;
+
+	private final InventoryRepository inventoryRepository;
+	private final InventoryValuationRepository valuationRepository;
+	private final ProductStockSummaryRepository productStockSummaryRepository;
+	private final ProductLocationStockRepository productLocationStockRepository;
+	private final ReportCache reportCache;
+	private final ProductBatchRepository batchRepository;
+	private final StockMovementRepository stockMovementRepository;
+	private final EntityManager entityManager;
+	private final FefoAllocationIndex fefoAllocationIndex;
+	private final JdbcTemplate jdbcTemplate;
+
+	public InventoryStockService(
+			InventoryRepository inventoryRepository,
+			InventoryValuationRepository valuationRepository,
+			ProductStockSummaryRepository productStockSummaryRepository,
+			ProductLocationStockRepository productLocationStockRepository,
+			ReportCache reportCache,
+			ProductBatchRepository batchRepository,
+			StockMovementRepository stockMovementRepository,
+			EntityManager entityManager,
+			FefoAllocationIndex fefoAllocationIndex,
+			DataSource dataSource
+	) {
+		this.inventoryRepository = inventoryRepository;
+		this.valuationRepository = valuationRepository;
+		this.productStockSummaryRepository = productStockSummaryRepository;
+		this.productLocationStockRepository = productLocationStockRepository;
+		this.reportCache = reportCache;
+		this.batchRepository = batchRepository;
+		this.stockMovementRepository = stockMovementRepository;
+		this.entityManager = entityManager;
+		this.fefoAllocationIndex = fefoAllocationIndex;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Transactional
+	public InventoryItemEntity findOrCreate(ProductBatchEntity batch, String location) {
+		return inventoryRepository.findByBatchIdAndLocation(batch.getId(), location).orElseGet(() -> {
+			InventoryItemEntity i = new InventoryItemEntity();
+			i.setBatch(batch);
+			i.setLocation(location);
+			i.setQtyOnHand(0);
+			return i;
+		});
+	}
+
+	@Transactional
+	public InventoryItemEntity addStock(ProductBatchEntity batch, String location, int qty) {
+		return change(findOrCreate(batch, location), qty);
+	}
+
+	@Transactional
+	public InventoryItemEntity change(InventoryItemEntity inv, int delta) {
+		InventoryItemEntity saved = tryChange(inv, delta);
+		if (saved == null) {
+			throw new IllegalArgumentException("Insufficient stock for batch " + inv.getBatch().getBatchNumber() + " at location " + inv.getLocation());
+		}
+		return saved;
+	}
+
+	@Transactional
+	public InventoryItemEntity adjust(long batchId, String location, int delta, String note, Authentication authentication) {
+		String loc = (location != null && !location.isBlank()) ? location.trim() : "MAIN";
+		ProductBatchEntity batch = batchRepository.findById(batchId).orElseThrow();
+
+		InventoryItemEntity saved = tryChange(findOrCreate(batch, loc), delta);
+		if (saved == null) {
+			throw new IllegalArgumentException("Adjustment would result in negative quantity");
+		}
+
+		StockMovementEntity mv = new StockMovementEntity();
+		mv.setType(StockMovementType.ADJUSTMENT);
+		mv.setBatch(batch);
+		mv.setQuantity(delta);
+		mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
+		String trimmedNote = (note != null && !note.isBlank()) ? note.trim() : null;
+		mv.setNote(trimmedNote != null ? ("Adj @" + loc + ": " + trimmedNote) : ("Adj @" + loc));
+		stockMovementRepository.save(mv);
+		return saved;
+	}
+
+	/**
+	 * Adds received stock for many batches with a single upsert on {@code inventory(batch_id, location)}, then
+	 * folds it into the aggregates and the FEFO index like any other change.
+	 */
+	@Transactional
+	public void receive(List<Receipt> receipts) {
+		if (receipts.isEmpty()) return;
+		Map<ReceiptKey, Receipt> merged = new LinkedHashMap<>();
+		for (Receipt r : receipts) {
+			if (r.quantity() <= 0) {
+				throw new IllegalArgumentException("Received quantity must be > 0");
+			}
+			merged.merge(new ReceiptKey(r.batchId(), r.location()), r, (a, b) -> a.withQuantity(a.quantity() + b.quantity()));
+		}
+		Long[] batchIds = new Long[merged.size()];
+		String[] locations = new String[merged.size()];
+		Integer[] quantities = new Integer[merged.size()];
+		int i = 0;
+		for (Receipt r : merged.values()) {
+			batchIds[i] = r.batchId();
+			locations[i] = r.location();
+			quantities[i] = r.quantity();
+			i++;
+		}
+
+		// Pending Hibernate writes must reach the database before a plain JDBC statement on the same connection.
+		entityManager.flush();
+		List<Object[]> rows = jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(
+					"insert into inventory (batch_id, location, qty_on_hand, version) " +
+							"select r.batch_id, r.location, r.qty, 0 from unnest(?, ?, ?) as r(batch_id, location, qty) " +
+							"on conflict (batch_id, location) do update set " +
+							"qty_on_hand = inventory.qty_on_hand + excluded.qty_on_hand, version = inventory.version + 1 " +
+							"returning id, batch_id, location, qty_on_hand, version");
+			ps.setArray(1, con.createArrayOf("bigint", batchIds));
+			ps.setArray(2, con.createArrayOf("varchar", locations));
+			ps.setArray(3, con.createArrayOf("integer", quantities));
+			return ps;
+		}, (rs, n) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getInt(4), rs.getLong(5)});
+
+		PendingChanges pending = pending();
+		for (Object[] row : rows) {
+			Receipt r = merged.get(new ReceiptKey((Long) row[1], (String) row[2]));
+			pending.record(r.productId(), r.costPrice(), r.location(), r.quantity());
+			pending.rows.put((Long) row[0], new FefoAllocationIndex.StockRow(
+					(Long) row[0],
+					r.productId(),
+					r.batchId(),
+					r.location(),
+					r.expiryDate(),
+					r.batchCreatedAt(),
+					r.costPrice(),
+					(Integer) row[3],
+					(Long) row[4]
+			));
+		}
+	}
+
+	/**
+	 * Takes stock out of many inventory rows with a single update. The rows should be locked by the caller; if any
+	 * of them holds less than asked, the transaction fails and nothing is taken.
+	 */
+	@Transactional
+	public void withdraw(List<Withdrawal> withdrawals) {
+		if (withdrawals.isEmpty()) return;
+		Map<Long, Withdrawal> byId = new LinkedHashMap<>();
+		for (Withdrawal w : withdrawals) {
+			if (w.quantity() <= 0) {
+				throw new IllegalArgumentException("Withdrawn quantity must be > 0");
+			}
+			byId.merge(w.item().getId(), w, (a, b) -> new Withdrawal(a.item(), a.quantity() + b.quantity()));
+		}
+		Long[] ids = new Long[byId.size()];
+		Integer[] quantities = new Integer[byId.size()];
+		int i = 0;
+		for (Withdrawal w : byId.values()) {
+			ids[i] = w.item().getId();
+			quantities[i] = w.quantity();
+			i++;
+		}
+
+		entityManager.flush();
+		List<Object[]> rows = jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(
+					"update inventory set qty_on_hand = inventory.qty_on_hand - r.qty, version = inventory.version + 1 " +
+							"from unnest(?, ?) as r(id, qty) where inventory.id = r.id and inventory.qty_on_hand >= r.qty " +
+							"returning inventory.id, inventory.qty_on_hand, inventory.version");
+			ps.setArray(1, con.createArrayOf("bigint", ids));
+			ps.setArray(2, con.createArrayOf("integer", quantities));
+			return ps;
+		}, (rs, n) -> new Object[]{rs.getLong(1), rs.getInt(2), rs.getLong(3)});
+		if (rows.size() != byId.size()) {
+			throw new IllegalArgumentException("Insufficient stock to withdraw from " + (byId.size() - rows.size()) + " inventory row(s)");
+		}
+
+		PendingChanges pending = pending();
+		for (Object[] row : rows) {
+			Withdrawal w = byId.get((Long) row[0]);
+			InventoryItemEntity inv = w.item();
+			ProductBatchEntity batch = inv.getBatch();
+			entityManager.detach(inv);
+			inv.syncStock((Integer) row[1], (Long) row[2]);
+			pending.record(batch.getProduct().getId(), batch.getCostPrice(), inv.getLocation(), -w.quantity());
+			pending.rows.put(inv.getId(), new FefoAllocationIndex.StockRow(
+					inv.getId(),
+					batch.getProduct().getId(),
+					batch.getId(),
+					inv.getLocation(),
+					batch.getExpiryDate(),
+					batch.getCreatedAt(),
+					batch.getCostPrice(),
+					inv.getQtyOnHand(),
+					inv.getVersion()
+			));
+		}
+	}
+
+	/**
+	 * Changes a batch's expiry date and cost price. The stock it holds is revalued and its rows are re-sorted in the
+	 * FEFO index after commit.
+	 */
+	@Transactional
+	public void revalue(ProductBatchEntity batch, LocalDate expiryDate, BigDecimal costPrice) {
+		List<?> rows = entityManager.createNativeQuery(
+						"update inventory set version = version + 1 where batch_id = :batchId " +
+								"returning id, location, qty_on_hand, version")
+				.setParameter("batchId", batch.getId())
+				.getResultList();
+		BigDecimal costDelta = costPrice.subtract(batch.getCostPrice());
+		batch.setExpiryDate(expiryDate);
+		batch.setCostPrice(costPrice);
+
+		PendingChanges pending = pending();
+		for (Object o : rows) {
+			Object[] row = (Object[]) o;
+			long inventoryId = ((Number) row[0]).longValue();
+			int qty = ((Number) row[2]).intValue();
+			pending.valuationDelta = pending.valuationDelta.add(costDelta.multiply(BigDecimal.valueOf(qty)));
+			pending.rows.put(inventoryId, new FefoAllocationIndex.StockRow(
+					inventoryId,
+					batch.getProduct().getId(),
+					batch.getId(),
+					(String) row[1],
+					expiryDate,
+					batch.getCreatedAt(),
+					costPrice,
+					qty,
+					((Number) row[3]).longValue()
+			));
+		}
+	}
+
+	/**
+	 * Applies {@code delta} and returns the row, or {@code null} when the row does not hold enough stock.
+	 */
+	private InventoryItemEntity tryChange(InventoryItemEntity inv, int delta) {
+		InventoryItemEntity saved;
+		if (inv.getId() == null) {
+			if (delta < 0) return null;
+			// A concurrent insert of the same batch/location fails on uq_inventory_batch_location and is retried.
+			inv.setQtyOnHand(delta);
+			saved = inventoryRepository.save(inv);
+		} else {
+			Object[] row = applyDelta(inv.getId(), delta);
+			if (row == null) return null;
+			// The row changed behind Hibernate's back, so stop tracking the stale copy before refreshing its state.
+			entityManager.detach(inv);
+			inv.syncStock(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+			saved = inv;
+		}
+		ProductBatchEntity batch = saved.getBatch();
+		PendingChanges pending = pending();
+		pending.record(batch.getProduct().getId(), batch.getCostPrice(), saved.getLocation(), delta);
+		pending.rows.put(saved.getId(), new FefoAllocationIndex.StockRow(
+				saved.getId(),
+				batch.getProduct().getId(),
+				batch.getId(),
+				saved.getLocation(),
+				batch.getExpiryDate(),
+				batch.getCreatedAt(),
+				batch.getCostPrice(),
+				saved.getQtyOnHand(),
+				saved.getVersion()
+		));
+		return saved;
+	}
+
+	/**
+	 * Applies a take planned by {@link FefoAllocationIndex}. Returns {@code false} when the row no longer holds
+	 * enough stock; nothing is changed in that case.
+	 */
+	@Transactional
+	public boolean take(FefoAllocationIndex.Allocation a) {
+		return applyAllocation(a, -a.quantity());
+	}
+
+	/**
+	 * Reverses an earlier {@link #take} within the same transaction.
+	 */
+	@Transactional
+	public void putBack(FefoAllocationIndex.Allocation a) {
+		applyAllocation(a, a.quantity());
+	}
+
+	private boolean applyAllocation(FefoAllocationIndex.Allocation a, int delta) {
+		Object[] row = applyDelta(a.inventoryId(), delta);
+		if (row == null) return false;
+		FefoAllocationIndex.StockRow source = a.row();
+		PendingChanges pending = pending();
+		pending.record(source.productId(), source.costPrice(), source.location(), delta);
+		pending.rows.put(source.inventoryId(), source.withStock(((Number) row[0]).intValue(), ((Number) row[1]).longValue()));
+		return true;
+	}
+
+	private Object[] applyDelta(long inventoryId, int delta) {
+		List<?> rows = entityManager.createNativeQuery(
+						"update inventory set qty_on_hand = qty_on_hand + :delta, version = version + 1 " +
+								"where id = :id and qty_on_hand + :delta >= 0 returning qty_on_hand, version")
+				.setParameter("delta", delta)
+				.setParameter("id", inventoryId)
+				.getResultList();
+		return rows.isEmpty() ? null : (Object[]) rows.get(0);
+	}
+
+	private PendingChanges pending() {
+		PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(PendingChanges.class);
+		if (pending != null) {
+			return pending;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("Stock changes require an active transaction");
+		}
+		PendingChanges created = new PendingChanges();
+		TransactionSynchronizationManager.bindResource(PendingChanges.class, created);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void beforeCommit(boolean readOnly) {
+				writePending(created);
+			}
+
+			@Override
+			public void afterCommit() {
+				fefoAllocationIndex.apply(created.rows.values());
+				reportCache.invalidate(ReportCache.STOCK);
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(PendingChanges.class);
+			}
+		});
+		return created;
+	}
+
+	private void writePending(PendingChanges pending) {
+		if (pending.valuationDelta.signum() != 0) {
+			valuationRepository.addToSlot(ThreadLocalRandom.current().nextInt(VALUATION_SLOTS), pending.valuationDelta);
+		}
+		// Summary rows are touched in key order so concurrent transactions cannot deadlock on them.
+		for (var e : pending.productDeltas.entrySet()) {
+			productStockSummaryRepository.addQuantity(e.getKey(), e.getValue());
+		}
+		for (var e : pending.locationDeltas.entrySet()) {
+			productLocationStockRepository.addQuantity(e.getKey().productId(), e.getKey().location(), e.getValue());
+		}
+		pending.clear();
+	}
+
+	private static final class PendingChanges {
+		private BigDecimal valuationDelta = BigDecimal.ZERO;
+		private final Map<Long, Integer> productDeltas = new TreeMap<>();
+		private final Map<ProductLocation, Integer> locationDeltas = new TreeMap<>(
+				Comparator.comparing(ProductLocation::productId).thenComparing(ProductLocation::location)
+		);
+
+		/** Latest state of every touched row, written through to the FEFO index after commit. */
+		private final Map<Long, FefoAllocationIndex.StockRow> rows = new HashMap<>();
+
+		private void record(Long productId, BigDecimal costPrice, String location, int delta) {
+			productDeltas.merge(productId, delta, Integer::sum);
+			locationDeltas.merge(new ProductLocation(productId, location), delta, Integer::sum);
+			if (delta != 0) {
+				valuationDelta = valuationDelta.add(costPrice.multiply(BigDecimal.valueOf(delta)));
+			}
+		}
+
+		private void clear() {
+			valuationDelta = BigDecimal.ZERO;
+			productDeltas.clear();
+			locationDeltas.clear();
+		}
+	}
+
+	private record ProductLocation(Long productId, String location) {
+	}
+
+	private record ReceiptKey(long batchId, String location) {
+	}
+
+	public record Withdrawal(InventoryItemEntity item, int quantity) {
+	}
+
+	public record Receipt(
+			long batchId,
+			long productId,
+			LocalDate expiryDate,
+			Instant batchCreatedAt,
+			BigDecimal costPrice,
+			String location,
+			int quantity
+	) {
+		Receipt withQuantity(int quantity) {
+			return new Receipt(batchId, productId, expiryDate, batchCreatedAt, costPrice, location, quantity);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.cosmetics.inventory.inventory;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "inventory_valuation")
+public class InventoryValuationEntity {
+	@Id
+	private Integer slot;
+
+	@Column(name = "total_value", nullable = false, precision = 19, scale = 4)
+	private BigDecimal totalValue = BigDecimal.ZERO;
+
+	public Integer getSlot() {
+		return slot;
+	}
+
+	public BigDecimal getTotalValue() {
+		return totalValue;
+	}
+}
@@ -0,0 +1,21 @@
+package com.cosmetics.inventory.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+public interface InventoryValuationRepository extends JpaRepository<InventoryValuationEntity, Integer> {
+	@Query("select coalesce(sum(v.totalValue), 0) from InventoryValuationEntity v")
+	BigDecimal totalValue();
+
+	@Modifying
+	@Transactional
+	@Query(value = "insert into inventory_valuation (slot, total_value) values (:slot, :delta) " +
+			"on conflict (slot) do update set total_value = inventory_valuation.total_value + excluded.total_value",
+			nativeQuery = true)
+	int addToSlot(@Param("slot") int slot, @Param("delta") BigDecimal delta);
+}
@@ -0,0 +1,42 @@
+package com.cosmetics.inventory.inventory;
+
+import com.cosmetics.inventory.product.ProductEntity;
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "product_location_stock", uniqueConstraints = {
+		@UniqueConstraint(name = "uq_product_location_stock", columnNames = {"product_id", "location"})
+}, indexes = {
+		@Index(name = "idx_product_location_stock_location_qty", columnList = "location, qty_on_hand")
+})
+public class ProductLocationStockEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	@JoinColumn(name = "product_id", nullable = false)
+	private ProductEntity product;
+
+	@Column(nullable = false, length = 120)
+	private String location;
+
+	@Column(name = "qty_on_hand", nullable = false)
+	private int qtyOnHand;
+
+	public Long getId() {
+		return id;
+	}
+
+	public ProductEntity getProduct() {
+		return product;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public int getQtyOnHand() {
+		return qtyOnHand;
+	}
+}
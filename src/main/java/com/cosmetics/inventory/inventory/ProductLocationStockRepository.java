@@ -0,0 +1,21 @@
+package com.cosmetics.inventory.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ProductLocationStockRepository extends JpaRepository<ProductLocationStockEntity, Long> {
+	@Query("select s from ProductLocationStockEntity s join fetch s.product where s.location = :location and s.qtyOnHand < :threshold order by s.qtyOnHand asc")
+	List<ProductLocationStockEntity> findBelow(@Param("location") String location, @Param("threshold") int threshold);
+
+	@Modifying
+	@Transactional
+	@Query(value = "insert into product_location_stock (product_id, location, qty_on_hand) values (:productId, :location, :delta) " +
+			"on conflict (product_id, location) do update set qty_on_hand = product_location_stock.qty_on_hand + excluded.qty_on_hand",
+			nativeQuery = true)
+	int addQuantity(@Param("productId") long productId, @Param("location") String location, @Param("delta") int delta);
+}
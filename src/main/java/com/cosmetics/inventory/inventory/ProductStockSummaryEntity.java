@@ -0,0 +1,33 @@
+package com.cosmetics.inventory.inventory;
+
+import com.cosmetics.inventory.product.ProductEntity;
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "product_stock_summary", indexes = {
+		@Index(name = "idx_product_stock_summary_qty", columnList = "qty_on_hand")
+})
+public class ProductStockSummaryEntity {
+	@Id
+	@Column(name = "product_id")
+	private Long productId;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "product_id", insertable = false, updatable = false)
+	private ProductEntity product;
+
+	@Column(name = "qty_on_hand", nullable = false)
+	private int qtyOnHand;
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public ProductEntity getProduct() {
+		return product;
+	}
+
+	public int getQtyOnHand() {
+		return qtyOnHand;
+	}
+}
@@ -0,0 +1,21 @@
+package com.cosmetics.inventory.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ProductStockSummaryRepository extends JpaRepository<ProductStockSummaryEntity, Long> {
+	@Query("select s from ProductStockSummaryEntity s join fetch s.product where s.qtyOnHand < :threshold order by s.qtyOnHand asc")
+	List<ProductStockSummaryEntity> findBelow(@Param("threshold") int threshold);
+
+	@Modifying
+	@Transactional
+	@Query(value = "insert into product_stock_summary (product_id, qty_on_hand) values (:productId, :delta) " +
+			"on conflict (product_id) do update set qty_on_hand = product_stock_summary.qty_on_hand + excluded.qty_on_hand",
+			nativeQuery = true)
+	int addQuantity(@Param("productId") long productId, @Param("delta") int delta);
+}
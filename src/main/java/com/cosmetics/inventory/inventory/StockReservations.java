@@ -0,0 +1,222 @@
+package com.cosmetics.inventory.inventory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Soft holds on stock for open carts. A hold only limits what other checkouts may take from a (product, location);
+ * it is not tied to batches, lives in memory only and lapses after its TTL.
+ * <p>
+ * Expiry is driven by a hashed timing wheel advanced lazily on every call: a hold is filed in the slot of its
+ * deadline tick, so adding, releasing and expiring a hold each cost O(1) however many holds are open.
+ */
+@Component
+public class StockReservations {
+	static final long TICK_MILLIS = 1000;
+	static final int WHEEL_SIZE = 512;
+	public static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+	public static final Duration MAX_TTL = Duration.ofHours(2);
+
+	private final FefoAllocationIndex fefoAllocationIndex;
+	private final Clock clock;
+
+	private final Map<String, Hold> holds = new HashMap<>();
+	private final Map<String, Set<Hold>> byCart = new HashMap<>();
+	private final Map<StockKey, Integer> reserved = new HashMap<>();
+	private final List<Set<Hold>> wheel = new ArrayList<>(WHEEL_SIZE);
+	private long currentTick;
+
+	@Autowired
+	public StockReservations(FefoAllocationIndex fefoAllocationIndex) {
+		this(fefoAllocationIndex, Clock.systemUTC());
+	}
+
+	StockReservations(FefoAllocationIndex fefoAllocationIndex, Clock clock) {
+		this.fefoAllocationIndex = fefoAllocationIndex;
+		this.clock = clock;
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			wheel.add(new LinkedHashSet<>());
+		}
+		this.currentTick = tickOf(clock.millis());
+	}
+
+	public Reservation reserve(String cartId, long productId, String location, int quantity, Duration ttl) {
+		if (cartId == null || cartId.isBlank()) {
+			throw new IllegalArgumentException("Cart id is required");
+		}
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("Quantity must be > 0");
+		}
+		Duration holdFor = ttl == null ? DEFAULT_TTL : ttl;
+		if (holdFor.isNegative() || holdFor.isZero() || holdFor.compareTo(MAX_TTL) > 0) {
+			throw new IllegalArgumentException("Reservation TTL must be between 1 second and " + MAX_TTL.toMinutes() + " minutes");
+		}
+		StockKey key = new StockKey(productId, location);
+		int onHand = onHand(key);
+
+		synchronized (this) {
+			long now = clock.millis();
+			advance(now);
+			int free = onHand - reserved.getOrDefault(key, 0);
+			if (quantity > free) {
+				throw new IllegalArgumentException("Only " + Math.max(free, 0) + " unreserved units of product " + productId + " are available at location " + location);
+			}
+			long deadline = now + holdFor.toMillis();
+			Hold hold = new Hold(UUID.randomUUID().toString(), cartId.trim(), key, quantity, deadline);
+			holds.put(hold.id, hold);
+			byCart.computeIfAbsent(hold.cartId, c -> new LinkedHashSet<>()).add(hold);
+			reserved.merge(key, quantity, Integer::sum);
+			slotOf(deadlineTick(deadline)).add(hold);
+			return hold.toReservation();
+		}
+	}
+
+	public synchronized boolean release(String reservationId) {
+		advance(clock.millis());
+		Hold hold = holds.get(reservationId);
+		if (hold == null) return false;
+		remove(hold);
+		return true;
+	}
+
+	public synchronized int releaseCart(String cartId) {
+		if (cartId == null) return 0;
+		advance(clock.millis());
+		Set<Hold> cart = byCart.get(cartId.trim());
+		if (cart == null) return 0;
+		List<Hold> open = new ArrayList<>(cart);
+		open.forEach(this::remove);
+		return open.size();
+	}
+
+	public synchronized List<Reservation> cart(String cartId) {
+		if (cartId == null) return List.of();
+		advance(clock.millis());
+		Set<Hold> cart = byCart.get(cartId.trim());
+		if (cart == null) return List.of();
+		return cart.stream().map(Hold::toReservation).toList();
+	}
+
+	/**
+	 * What other carts hold on a (product, location): the part of the stock {@code cartId} may not take.
+	 */
+	public synchronized int reservedByOthers(long productId, String location, String cartId) {
+		advance(clock.millis());
+		StockKey key = new StockKey(productId, location);
+		int total = reserved.getOrDefault(key, 0);
+		if (total == 0 || cartId == null) return total;
+		Set<Hold> cart = byCart.get(cartId.trim());
+		if (cart == null) return total;
+		for (Hold h : cart) {
+			if (h.key.equals(key)) total -= h.quantity;
+		}
+		return total;
+	}
+
+	/**
+	 * Availability straight from memory. Fails while the stock index is still warming up.
+	 */
+	public Availability availability(long productId, String location) {
+		StockKey key = new StockKey(productId, location);
+		int onHand = onHand(key);
+		int held;
+		synchronized (this) {
+			advance(clock.millis());
+			held = reserved.getOrDefault(key, 0);
+		}
+		return new Availability(productId, location, onHand, held, Math.max(onHand - held, 0));
+	}
+
+	private int onHand(StockKey key) {
+		int onHand = fefoAllocationIndex.available(key.productId(), key.location(), LocalDate.now(clock));
+		if (onHand < 0) {
+			throw new IllegalStateException("Stock availability is still loading, try again shortly");
+		}
+		return onHand;
+	}
+
+	/**
+	 * Expires every hold whose deadline has passed. Each elapsed tick visits one slot; after an idle gap longer
+	 * than a full turn every slot is visited once.
+	 */
+	private void advance(long nowMillis) {
+		long nowTick = tickOf(nowMillis);
+		if (nowTick <= currentTick) return;
+		long steps = Math.min(nowTick - currentTick, WHEEL_SIZE);
+		for (long t = nowTick - steps + 1; t <= nowTick; t++) {
+			Set<Hold> slot = slotOf(t);
+			if (slot.isEmpty()) continue;
+			List<Hold> due = new ArrayList<>();
+			for (Hold h : slot) {
+				if (h.deadline <= nowMillis) due.add(h);
+			}
+			due.forEach(this::remove);
+		}
+		currentTick = nowTick;
+	}
+
+	private void remove(Hold hold) {
+		holds.remove(hold.id);
+		slotOf(deadlineTick(hold.deadline)).remove(hold);
+		Set<Hold> cart = byCart.get(hold.cartId);
+		if (cart != null) {
+			cart.remove(hold);
+			if (cart.isEmpty()) byCart.remove(hold.cartId);
+		}
+		reserved.computeIfPresent(hold.key, (k, q) -> q - hold.quantity == 0 ? null : q - hold.quantity);
+	}
+
+	private Set<Hold> slotOf(long tick) {
+		return wheel.get((int) Math.floorMod(tick, (long) WHEEL_SIZE));
+	}
+
+	private static long tickOf(long millis) {
+		return Math.floorDiv(millis, TICK_MILLIS);
+	}
+
+	private static long deadlineTick(long deadline) {
+		// Rounded up so that once the wheel reaches the slot, the deadline has passed.
+		return Math.floorDiv(deadline + TICK_MILLIS - 1, TICK_MILLIS);
+	}
+
+	private record StockKey(long productId, String location) {
+	}
+
+	private static final class Hold {
+		private final String id;
+		private final String cartId;
+		private final StockKey key;
+		private final int quantity;
+		private final long deadline;
+
+		private Hold(String id, String cartId, StockKey key, int quantity, long deadline) {
+			this.id = id;
+			this.cartId = cartId;
+			this.key = key;
+			this.quantity = quantity;
+			this.deadline = deadline;
+		}
+
+		private Reservation toReservation() {
+			return new Reservation(id, cartId, key.productId(), key.location(), quantity, Instant.ofEpochMilli(deadline));
+		}
+	}
+
+	public record Reservation(String id, String cartId, long productId, String location, int quantity, Instant expiresAt) {
+	}
+
+	public record Availability(long productId, String location, int onHand, int reserved, int available) {
+	}
+}
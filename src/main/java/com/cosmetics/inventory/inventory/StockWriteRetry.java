@@ -0,0 +1,78 @@
+package com.cosmetics.inventory.inventory;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import org.hibernate.StaleStateException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a stock-changing unit of work in its own transaction and retries it a few times when it loses a race:
+ * an optimistic version conflict, a deadlock or serialization failure, or two checkouts creating the same
+ * inventory row. Business failures such as insufficient stock are never retried.
+ */
+@Component
+public class StockWriteRetry {
+	static final int MAX_ATTEMPTS = 3;
+
+	private final TransactionTemplate tx;
+
+	public StockWriteRetry(PlatformTransactionManager transactionManager) {
+		this.tx = new TransactionTemplate(transactionManager);
+	}
+
+	public <T> T execute(Supplier<T> work) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			// Part of a larger transaction: only the outermost caller can retry.
+			return work.get();
+		}
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return tx.execute(status -> work.get());
+			} catch (RuntimeException e) {
+				if (attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+					throw e;
+				}
+				backOff(attempt);
+			}
+		}
+	}
+
+	static boolean isRetryable(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof ConcurrencyFailureException
+					|| t instanceof OptimisticLockException
+					|| t instanceof PessimisticLockException
+					|| t instanceof StaleStateException) {
+				return true;
+			}
+			if (t instanceof SQLException sql) {
+				String state = sql.getSQLState();
+				if ("40001".equals(state) || "40P01".equals(state)) {
+					return true;
+				}
+				if ("23505".equals(state) && String.valueOf(sql.getMessage()).contains("uq_inventory_batch_location")) {
+					return true;
+				}
+			}
+			if (t.getCause() == t) break;
+		}
+		return false;
+	}
+
+	private static void backOff(int attempt) {
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L * attempt));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while retrying a stock update", e);
+		}
+	}
+}
@@ -7,7 +7,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "my_sales")
+@Table(name = "my_sales", indexes = {
+		@Index(name = "idx_my_sales_reference_number", columnList = "reference_number")
+})
 public class MySaleEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
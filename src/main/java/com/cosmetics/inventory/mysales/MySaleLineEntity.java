@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "my_sale_lines")
+@Table(name = "my_sale_lines", indexes = {
+		@Index(name = "idx_my_sale_lines_my_sale", columnList = "my_sale_id")
+})
 public class MySaleLineEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
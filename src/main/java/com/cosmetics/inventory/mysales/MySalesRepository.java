@@ -1,9 +1,19 @@
 package com.cosmetics.inventory.mysales;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface MySalesRepository extends JpaRepository<MySaleEntity, Long> {
 	List<MySaleEntity> findAllByOrderByCreatedAtDesc();
+
+	/**
+	 * The latest sale with that reference number, with its lines.
+	 */
+	@Query("select s from MySaleEntity s left join fetch s.lines " +
+			"where s.id = (select max(s2.id) from MySaleEntity s2 where s2.referenceNumber = :ref)")
+	Optional<MySaleEntity> findLatestByReferenceWithLines(@Param("ref") String referenceNumber);
 }
@@ -0,0 +1,30 @@
+package com.cosmetics.inventory.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page ordered by (timestamp desc, id desc). Clients get it as an opaque,
+ * URL-safe string and hand it back as {@code after}.
+ */
+public record KeysetCursor(Instant at, long id) {
+	public String encode() {
+		String raw = at.toString() + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the cursor, or {@code null} for a blank value (the first page)
+	 */
+	public static KeysetCursor decode(String after) {
+		if (after == null || after.isBlank()) return null;
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(after.trim()), StandardCharsets.UTF_8);
+			int sep = raw.lastIndexOf('|');
+			return new KeysetCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+	}
+}
@@ -9,6 +9,8 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "product_batches", uniqueConstraints = {
 		@UniqueConstraint(name = "uq_product_batch_number", columnNames = {"product_id", "batch_number"})
+}, indexes = {
+		@Index(name = "idx_product_batches_expiry", columnList = "expiry_date, id")
 })
 public class ProductBatchEntity {
 	@Id
@@ -2,10 +2,12 @@ package com.cosmetics.inventory.product;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ProductBatchRepository extends JpaRepository<ProductBatchEntity, Long> {
 	List<ProductBatchEntity> findByProductIdOrderByExpiryDateAscCreatedAtAsc(Long productId);
 	Optional<ProductBatchEntity> findByProductIdAndBatchNumberIgnoreCase(Long productId, String batchNumber);
+	List<ProductBatchEntity> findByProductIdInAndBatchNumberIn(Collection<Long> productIds, Collection<String> batchNumbers);
 }
@@ -1,7 +1,10 @@
 package com.cosmetics.inventory.product;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +18,10 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
 	);
 
 	List<ProductEntity> findTop200ByActiveOrderByNameAsc(boolean active);
+
+	/**
+	 * Matches lower-cased codes against SKU or barcode.
+	 */
+	@Query("select p from ProductEntity p where lower(p.sku) in :codes or lower(p.barcode) in :codes")
+	List<ProductEntity> findBySkuOrBarcodeIn(@Param("codes") Collection<String> codes);
 }
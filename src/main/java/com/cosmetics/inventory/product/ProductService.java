@@ -1,7 +1,7 @@
 package com.cosmetics.inventory.product;
 
-import com.cosmetics.inventory.inventory.InventoryItemEntity;
-import com.cosmetics.inventory.inventory.InventoryRepository;
+import com.cosmetics.inventory.inventory.InventoryStockService;
+import com.cosmetics.inventory.report.ReportCache;
 import com.cosmetics.inventory.stockmovement.StockMovementEntity;
 import com.cosmetics.inventory.stockmovement.StockMovementRepository;
 import com.cosmetics.inventory.stockmovement.StockMovementType;
@@ -17,14 +17,16 @@ import java.util.List;
 public class ProductService {
 	private final ProductRepository productRepository;
 	private final ProductBatchRepository batchRepository;
-	private final InventoryRepository inventoryRepository;
+	private final InventoryStockService inventoryStockService;
 	private final StockMovementRepository movementRepository;
+	private final ReportCache reportCache;
 
-	public ProductService(ProductRepository productRepository, ProductBatchRepository batchRepository, InventoryRepository inventoryRepository, StockMovementRepository movementRepository) {
+	public ProductService(ProductRepository productRepository, ProductBatchRepository batchRepository, InventoryStockService inventoryStockService, StockMovementRepository movementRepository, ReportCache reportCache) {
 		this.productRepository = productRepository;
 		this.batchRepository = batchRepository;
-		this.inventoryRepository = inventoryRepository;
+		this.inventoryStockService = inventoryStockService;
 		this.movementRepository = movementRepository;
+		this.reportCache = reportCache;
 	}
 
 	@Transactional(readOnly = true)
@@ -76,6 +78,7 @@ public class ProductService {
 		if (cmd.unitOfMeasure() != null) p.setUnitOfMeasure(cmd.unitOfMeasure());
 		if (cmd.buyingPrice() != null) p.setBuyingPrice(BigDecimal.valueOf(cmd.buyingPrice()));
 		if (cmd.sellingPrice() != null) p.setSellingPrice(BigDecimal.valueOf(cmd.sellingPrice()));
+		reportCache.invalidateAfterCommit(ReportCache.CATALOG);
 		return productRepository.save(p);
 	}
 
@@ -100,14 +103,7 @@ public class ProductService {
 
 		String location = (cmd.location() != null && !cmd.location().isBlank()) ? cmd.location().trim() : "MAIN";
 
-		InventoryItemEntity inv = inventoryRepository.findByBatchIdAndLocation(persistedBatch.getId(), location).orElseGet(() -> {
-			InventoryItemEntity i = new InventoryItemEntity();
-			i.setBatch(persistedBatch);
-			i.setLocation(location);
-			return i;
-		});
-		inv.setQtyOnHand(inv.getQtyOnHand() + cmd.quantityReceived());
-		inventoryRepository.save(inv);
+		inventoryStockService.addStock(persistedBatch, location, cmd.quantityReceived());
 
 		if (cmd.quantityReceived() > 0) {
 			StockMovementEntity mv = new StockMovementEntity();
@@ -138,6 +134,7 @@ public class ProductService {
 			}
 		});
 		batch.setBatchNumber(trimmed);
+		reportCache.invalidateAfterCommit(ReportCache.STOCK);
 		return batchRepository.save(batch);
 	}
 
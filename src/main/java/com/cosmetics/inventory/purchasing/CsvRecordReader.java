@@ -0,0 +1,97 @@
+package com.cosmetics.inventory.purchasing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time, so a file is never held in memory. Quoted fields may contain commas, doubled
+ * quotes and line breaks; a leading byte order mark is skipped.
+ */
+final class CsvRecordReader {
+	static final int MAX_FIELD_LENGTH = 4096;
+
+	private final BufferedReader in;
+	private long line = 1;
+	private long recordLine;
+	private boolean started;
+	private boolean eof;
+
+	CsvRecordReader(Reader in) {
+		this.in = new BufferedReader(in, 64 * 1024);
+	}
+
+	/**
+	 * @return the next record's fields, or {@code null} at the end of the input
+	 */
+	List<String> next() throws IOException {
+		if (eof) return null;
+		recordLine = line;
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		boolean any = false;
+		while (true) {
+			int c = in.read();
+			if (!started) {
+				started = true;
+				if (c == '\uFEFF') c = in.read();
+			}
+			if (c == -1) {
+				eof = true;
+				if (quoted) {
+					throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+				}
+				if (!any) return null;
+				fields.add(field.toString());
+				return fields;
+			}
+			any = true;
+			if (quoted) {
+				if (c == '"') {
+					in.mark(1);
+					if (in.read() == '"') {
+						field.append('"');
+					} else {
+						quoted = false;
+						in.reset();
+					}
+				} else {
+					if (c == '\n') line++;
+					append(field, c);
+				}
+			} else if (c == '"' && field.isEmpty()) {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\r' || c == '\n') {
+				if (c == '\r') {
+					in.mark(1);
+					if (in.read() != '\n') in.reset();
+				}
+				line++;
+				fields.add(field.toString());
+				return fields;
+			} else {
+				append(field, c);
+			}
+		}
+	}
+
+	/**
+	 * The line the last record returned by {@link #next()} started on, counting from 1.
+	 */
+	long recordLine() {
+		return recordLine;
+	}
+
+	private void append(StringBuilder field, int c) {
+		if (field.length() >= MAX_FIELD_LENGTH) {
+			throw new IllegalArgumentException("Field longer than " + MAX_FIELD_LENGTH + " characters on line " + recordLine);
+		}
+		field.append((char) c);
+	}
+}
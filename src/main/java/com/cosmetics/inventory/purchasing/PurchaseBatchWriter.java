@@ -0,0 +1,55 @@
+package com.cosmetics.inventory.purchasing;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts the batches, purchase lines and IN movements of a delivery with JDBC batches. Batch ids are reserved
+ * from the sequence up front because the purchase lines and movements reference them.
+ */
+@Component
+class PurchaseBatchWriter {
+	private final JdbcTemplate jdbcTemplate;
+
+	PurchaseBatchWriter(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * @return the new batch ids, in the order of {@code lines}
+	 */
+	List<Long> insert(long purchaseOrderId, List<NewLine> lines, Instant createdAt, String createdBy, String note) {
+		List<Long> batchIds = jdbcTemplate.queryForList(
+				"select nextval(pg_get_serial_sequence('product_batches', 'id')) from generate_series(1, ?)",
+				Long.class, lines.size());
+
+		Timestamp at = Timestamp.from(createdAt);
+		List<Object[]> batchRows = new ArrayList<>(lines.size());
+		List<Object[]> lineRows = new ArrayList<>(lines.size());
+		List<Object[]> movementRows = new ArrayList<>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			NewLine l = lines.get(i);
+			Long batchId = batchIds.get(i);
+			batchRows.add(new Object[]{batchId, l.productId(), l.batchNumber(), Date.valueOf(l.expiryDate()), l.costPrice(), l.quantity(), at});
+			lineRows.add(new Object[]{purchaseOrderId, l.productId(), batchId, l.costPrice(), l.quantity()});
+			movementRows.add(new Object[]{"IN", batchId, l.quantity(), at, createdBy, note});
+		}
+
+		jdbcTemplate.batchUpdate("insert into product_batches (id, product_id, batch_number, expiry_date, cost_price, quantity_received, created_at) values (?, ?, ?, ?, ?, ?, ?)", batchRows);
+		jdbcTemplate.batchUpdate("insert into purchase_order_lines (purchase_order_id, product_id, batch_id, cost_price, quantity_received) values (?, ?, ?, ?, ?)", lineRows);
+		jdbcTemplate.batchUpdate("insert into stock_movements (type, batch_id, quantity, created_at, created_by, note) values (?, ?, ?, ?, ?, ?)", movementRows);
+		return batchIds;
+	}
+
+	record NewLine(long productId, String batchNumber, LocalDate expiryDate, BigDecimal costPrice, int quantity) {
+	}
+}
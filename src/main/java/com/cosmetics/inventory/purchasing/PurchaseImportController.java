@@ -0,0 +1,61 @@
+package com.cosmetics.inventory.purchasing;
+
+import com.cosmetics.inventory.user.PermissionGuard;
+import com.cosmetics.inventory.user.PermissionModule;
+import com.cosmetics.inventory.user.PermissionsService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/purchases")
+public class PurchaseImportController {
+	private final PurchaseInvoiceImportService importService;
+	private final PermissionGuard permissionGuard;
+
+	public PurchaseImportController(PurchaseInvoiceImportService importService, PermissionGuard permissionGuard) {
+		this.importService = importService;
+		this.permissionGuard = permissionGuard;
+	}
+
+	/**
+	 * Receives a supplier invoice uploaded as CSV. The upload is spooled to disk by the servlet container and read
+	 * as a stream.
+	 */
+	@PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	@PreAuthorize("hasAnyRole('ADMIN','STOREKEEPER')")
+	public PurchaseInvoiceImportService.PurchaseImportReport importInvoice(
+			@RequestPart("file") MultipartFile file,
+			@RequestParam(required = false) String supplier,
+			@RequestParam(required = false) String invoiceNumber,
+			Authentication authentication
+	) throws IOException {
+		permissionGuard.require(authentication, PermissionModule.PURCHASING, PermissionsService.PermissionAction.CREATE);
+		if (file.isEmpty()) {
+			throw new IllegalArgumentException("The file is empty");
+		}
+		try (InputStream in = file.getInputStream()) {
+			return importService.importCsv(blankToNull(supplier), blankToNull(invoiceNumber), in, authentication);
+		}
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<String> badRequest(IllegalArgumentException ex) {
+		return ResponseEntity.badRequest().body(ex.getMessage());
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.isBlank() ? null : value.trim();
+	}
+}
@@ -0,0 +1,357 @@
+package com.cosmetics.inventory.purchasing;
+
+import com.cosmetics.inventory.inventory.StockWriteRetry;
+import com.cosmetics.inventory.product.ProductBatchEntity;
+import com.cosmetics.inventory.product.ProductBatchRepository;
+import com.cosmetics.inventory.product.ProductEntity;
+import com.cosmetics.inventory.product.ProductRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Imports a supplier invoice exported as CSV into a single purchase. The file is read record by record and received
+ * in chunks: each chunk resolves its SKUs and barcodes with one query, checks its batch numbers with another, and
+ * goes through the set-based receive path in its own transaction. Bad lines are reported and skipped; the rest of
+ * the file is still received. Because every chunk commits on its own, a chunk that fails to save does not undo the
+ * chunks before it; the report then says the purchase holds only part of the file.
+ */
+@Service
+public class PurchaseInvoiceImportService {
+	public static final int CHUNK_SIZE = 500;
+	public static final int MAX_REPORTED_ERRORS = 1000;
+
+	private final PurchasingService purchasingService;
+	private final ProductRepository productRepository;
+	private final ProductBatchRepository batchRepository;
+	private final StockWriteRetry stockWriteRetry;
+
+	public PurchaseInvoiceImportService(
+			PurchasingService purchasingService,
+			ProductRepository productRepository,
+			ProductBatchRepository batchRepository,
+			StockWriteRetry stockWriteRetry
+	) {
+		this.purchasingService = purchasingService;
+		this.productRepository = productRepository;
+		this.batchRepository = batchRepository;
+		this.stockWriteRetry = stockWriteRetry;
+	}
+
+	public PurchaseImportReport importCsv(String supplier, String invoiceNumber, InputStream in, Authentication authentication) throws IOException {
+		CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		List<String> header = reader.next();
+		if (header == null) {
+			throw new IllegalArgumentException("The file is empty");
+		}
+		Columns columns = Columns.of(header);
+
+		Import state = new Import(supplier, invoiceNumber, authentication);
+		List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+		List<String> record;
+		while ((record = reader.next()) != null) {
+			if (isBlank(record)) continue;
+			state.total++;
+			Row row = columns.parse(reader.recordLine(), record, state);
+			if (row == null) continue;
+			chunk.add(row);
+			if (chunk.size() == CHUNK_SIZE) {
+				receive(chunk, state);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			receive(chunk, state);
+		}
+
+		return new PurchaseImportReport(
+				state.purchaseOrderId,
+				state.total,
+				state.imported,
+				state.total - state.imported,
+				state.errors,
+				state.errorsTruncated,
+				state.saveFailed && state.purchaseOrderId != null
+		);
+	}
+
+	private void receive(List<Row> chunk, Import state) {
+		Set<String> codes = new HashSet<>();
+		for (Row row : chunk) {
+			codes.add(row.code().toLowerCase(Locale.ROOT));
+		}
+		Map<String, ProductEntity> bySku = new HashMap<>();
+		Map<String, List<ProductEntity>> byBarcode = new HashMap<>();
+		for (ProductEntity p : productRepository.findBySkuOrBarcodeIn(codes)) {
+			if (p.getSku() != null) bySku.put(p.getSku().toLowerCase(Locale.ROOT), p);
+			if (p.getBarcode() != null) byBarcode.computeIfAbsent(p.getBarcode().toLowerCase(Locale.ROOT), b -> new ArrayList<>()).add(p);
+		}
+
+		List<Row> resolved = new ArrayList<>(chunk.size());
+		List<ProductEntity> products = new ArrayList<>(chunk.size());
+		for (Row row : chunk) {
+			String code = row.code().toLowerCase(Locale.ROOT);
+			ProductEntity product = bySku.get(code);
+			if (product == null) {
+				List<ProductEntity> matches = byBarcode.getOrDefault(code, List.of());
+				if (matches.size() > 1) {
+					state.reject(row.line(), row.code(), "Barcode matches more than one product");
+					continue;
+				}
+				product = matches.isEmpty() ? null : matches.get(0);
+			}
+			if (product == null) {
+				state.reject(row.line(), row.code(), "Unknown SKU or barcode");
+				continue;
+			}
+			resolved.add(row);
+			products.add(product);
+		}
+		if (resolved.isEmpty()) return;
+
+		Set<Long> productIds = new HashSet<>();
+		Set<String> batchNumbers = new HashSet<>();
+		for (int i = 0; i < resolved.size(); i++) {
+			productIds.add(products.get(i).getId());
+			batchNumbers.add(resolved.get(i).batchNumber());
+		}
+		Set<String> existing = new HashSet<>();
+		for (ProductBatchEntity b : batchRepository.findByProductIdInAndBatchNumberIn(productIds, batchNumbers)) {
+			existing.add(b.getProduct().getId() + "|" + b.getBatchNumber());
+		}
+
+		List<Row> accepted = new ArrayList<>(resolved.size());
+		List<PurchasingService.ReceivePurchaseLineCommand> lines = new ArrayList<>(resolved.size());
+		for (int i = 0; i < resolved.size(); i++) {
+			Row row = resolved.get(i);
+			ProductEntity product = products.get(i);
+			String key = product.getId() + "|" + row.batchNumber();
+			if (existing.contains(key)) {
+				state.reject(row.line(), row.code(), "Batch " + row.batchNumber() + " already exists for product " + product.getSku());
+				continue;
+			}
+			if (!state.batches.add(key)) {
+				state.reject(row.line(), row.code(), "Batch " + row.batchNumber() + " is listed more than once for product " + product.getSku());
+				continue;
+			}
+			accepted.add(row);
+			lines.add(new PurchasingService.ReceivePurchaseLineCommand(
+					product.getId(),
+					row.batchNumber(),
+					row.expiryDate().toString(),
+					row.costPrice(),
+					row.quantity()
+			));
+		}
+		if (lines.isEmpty()) return;
+
+		try {
+			if (state.purchaseOrderId == null) {
+				state.purchaseOrderId = stockWriteRetry.execute(() -> purchasingService.receivePurchase(
+						new PurchasingService.ReceivePurchaseCommand(state.supplier, state.invoiceNumber, lines),
+						state.authentication
+				).getId());
+			} else {
+				long purchaseOrderId = state.purchaseOrderId;
+				stockWriteRetry.execute(() -> {
+					purchasingService.receiveMoreLines(purchaseOrderId, lines, state.authentication);
+					return null;
+				});
+			}
+			state.imported += lines.size();
+		} catch (RuntimeException e) {
+			state.saveFailed = true;
+			String error = saveFailure(e);
+			for (Row row : accepted) {
+				state.reject(row.line(), row.code(), error);
+			}
+		}
+	}
+
+	/**
+	 * Domain errors carry a message meant for the uploader; anything else (SQL errors, lock timeouts) is not passed
+	 * through.
+	 */
+	private static String saveFailure(RuntimeException e) {
+		if (e instanceof IllegalArgumentException || e instanceof NoSuchElementException) {
+			return "Could not save line: " + e.getMessage();
+		}
+		return "Could not save line";
+	}
+
+	private static boolean isBlank(List<String> record) {
+		for (String field : record) {
+			if (!field.isBlank()) return false;
+		}
+		return true;
+	}
+
+	private static String normalize(String header) {
+		return header.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+	}
+
+	/**
+	 * Column positions, found by header name. Either an SKU or a barcode column is required; when both are present
+	 * the SKU wins for lines that have one.
+	 */
+	private record Columns(int sku, int barcode, int batchNumber, int expiryDate, int costPrice, int quantity) {
+		static Columns of(List<String> header) {
+			Map<String, Integer> index = new HashMap<>();
+			for (int i = 0; i < header.size(); i++) {
+				index.putIfAbsent(normalize(header.get(i)), i);
+			}
+			int sku = find(index, "sku", "productsku", "code", "productcode", "itemcode");
+			int barcode = find(index, "barcode", "ean", "upc", "gtin");
+			int batchNumber = find(index, "batchnumber", "batch", "batchno", "lot", "lotnumber");
+			int expiryDate = find(index, "expirydate", "expiry", "expires", "exp");
+			int costPrice = find(index, "costprice", "cost", "unitcost", "unitprice", "price");
+			int quantity = find(index, "quantityreceived", "quantity", "qty");
+
+			List<String> missing = new ArrayList<>();
+			if (sku < 0 && barcode < 0) missing.add("sku or barcode");
+			if (batchNumber < 0) missing.add("batchNumber");
+			if (expiryDate < 0) missing.add("expiryDate");
+			if (costPrice < 0) missing.add("costPrice");
+			if (quantity < 0) missing.add("quantity");
+			if (!missing.isEmpty()) {
+				throw new IllegalArgumentException("Missing column(s): " + String.join(", ", missing));
+			}
+			return new Columns(sku, barcode, batchNumber, expiryDate, costPrice, quantity);
+		}
+
+		private static int find(Map<String, Integer> index, String... names) {
+			for (String name : names) {
+				Integer i = index.get(name);
+				if (i != null) return i;
+			}
+			return -1;
+		}
+
+		/**
+		 * @return the parsed line, or {@code null} after reporting why it was rejected
+		 */
+		Row parse(long line, List<String> record, Import state) {
+			String code = field(record, sku);
+			if (code.isEmpty()) code = field(record, barcode);
+			if (code.isEmpty()) {
+				state.reject(line, null, "SKU or barcode is required");
+				return null;
+			}
+			String batch = field(record, batchNumber);
+			if (batch.isEmpty()) {
+				state.reject(line, code, "Batch number is required");
+				return null;
+			}
+
+			LocalDate expiry;
+			String rawExpiry = field(record, expiryDate);
+			try {
+				expiry = LocalDate.parse(rawExpiry);
+			} catch (DateTimeParseException e) {
+				state.reject(line, code, "Invalid expiry date '" + rawExpiry + "', expected YYYY-MM-DD");
+				return null;
+			}
+			if (expiry.isBefore(LocalDate.now())) {
+				state.reject(line, code, "Expiry date " + expiry + " is in the past");
+				return null;
+			}
+
+			BigDecimal cost;
+			String rawCost = field(record, costPrice);
+			try {
+				cost = new BigDecimal(rawCost);
+			} catch (NumberFormatException e) {
+				state.reject(line, code, "Invalid cost price '" + rawCost + "'");
+				return null;
+			}
+			if (cost.signum() < 0) {
+				state.reject(line, code, "Cost price must be >= 0");
+				return null;
+			}
+
+			int qty;
+			String rawQty = field(record, quantity);
+			try {
+				qty = Integer.parseInt(rawQty);
+			} catch (NumberFormatException e) {
+				state.reject(line, code, "Invalid quantity '" + rawQty + "'");
+				return null;
+			}
+			if (qty <= 0) {
+				state.reject(line, code, "Quantity must be > 0");
+				return null;
+			}
+			return new Row(line, code, batch, expiry, cost, qty);
+		}
+
+		private static String field(List<String> record, int i) {
+			return i >= 0 && i < record.size() ? record.get(i).trim() : "";
+		}
+	}
+
+	private record Row(long line, String code, String batchNumber, LocalDate expiryDate, BigDecimal costPrice, int quantity) {
+	}
+
+	private static final class Import {
+		private final String supplier;
+		private final String invoiceNumber;
+		private final Authentication authentication;
+		private final Set<String> batches = new HashSet<>();
+		private final List<LineError> errors = new ArrayList<>();
+		private Long purchaseOrderId;
+		private int total;
+		private int imported;
+		private boolean errorsTruncated;
+		private boolean saveFailed;
+
+		private Import(String supplier, String invoiceNumber, Authentication authentication) {
+			this.supplier = supplier;
+			this.invoiceNumber = invoiceNumber;
+			this.authentication = authentication;
+		}
+
+		private void reject(long line, String code, String message) {
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(new LineError(line, code, message));
+			} else {
+				errorsTruncated = true;
+			}
+		}
+	}
+
+	/**
+	 * {@code line} is the line of the file the record starts on, counting the header as line 1.
+	 */
+	public record LineError(long line, String code, String message) {
+	}
+
+	/**
+	 * {@code partial} is set when the purchase was created but some valid lines could not be saved with it, so the
+	 * purchase does not match the invoice; those lines are listed in {@code errors}.
+	 */
+	public record PurchaseImportReport(
+			Long purchaseOrderId,
+			int totalLines,
+			int importedLines,
+			int rejectedLines,
+			List<LineError> errors,
+			boolean errorsTruncated,
+			boolean partial
+	) {
+	}
+}
@@ -7,7 +7,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "purchase_orders")
+@Table(name = "purchase_orders", indexes = {
+		@Index(name = "idx_purchase_orders_received_at", columnList = "received_at, id"),
+		@Index(name = "idx_purchase_orders_supplier_received_at", columnList = "supplier, received_at, id"),
+		@Index(name = "idx_purchase_orders_invoice_number", columnList = "invoice_number")
+})
 public class PurchaseOrderEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
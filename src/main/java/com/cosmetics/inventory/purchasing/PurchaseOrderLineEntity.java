@@ -7,7 +7,9 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "purchase_order_lines")
+@Table(name = "purchase_order_lines", indexes = {
+		@Index(name = "idx_purchase_order_lines_purchase_order", columnList = "purchase_order_id")
+})
 public class PurchaseOrderLineEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
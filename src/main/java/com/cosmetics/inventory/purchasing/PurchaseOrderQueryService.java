@@ -0,0 +1,98 @@
+package com.cosmetics.inventory.purchasing;
+
+import com.cosmetics.inventory.paging.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class PurchaseOrderQueryService {
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int MAX_PAGE_SIZE = 200;
+
+	private final EntityManager entityManager;
+
+	public PurchaseOrderQueryService(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * Pages purchases newest first by (receivedAt, id). Keys are read first and the page's orders are then loaded
+	 * with lines, products and batches in a single fetch join; a purchase has one batch per line, so unlike sales
+	 * a second query is not needed.
+	 */
+	@Transactional(readOnly = true)
+	public PurchaseOrderPage findPage(PurchaseOrderCriteria criteria, Integer first, String after) {
+		int limit = first == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(first, MAX_PAGE_SIZE));
+		List<Object[]> keys = buildQuery(criteria, KeysetCursor.decode(after))
+				.setMaxResults(limit + 1)
+				.getResultList();
+
+		boolean hasMore = keys.size() > limit;
+		List<Object[]> pageKeys = hasMore ? keys.subList(0, limit) : keys;
+		if (pageKeys.isEmpty()) {
+			return new PurchaseOrderPage(List.of(), null, false);
+		}
+		List<Long> ids = new ArrayList<>(pageKeys.size());
+		for (Object[] k : pageKeys) {
+			ids.add((Long) k[0]);
+		}
+
+		Map<Long, PurchaseOrderEntity> byId = new HashMap<>();
+		for (PurchaseOrderEntity po : entityManager.createQuery(
+						"select distinct po from PurchaseOrderEntity po left join fetch po.lines l " +
+								"left join fetch l.product left join fetch l.batch where po.id in :ids", PurchaseOrderEntity.class)
+				.setParameter("ids", ids)
+				.getResultList()) {
+			byId.put(po.getId(), po);
+		}
+		List<PurchaseOrderEntity> items = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			items.add(byId.get(id));
+		}
+
+		Object[] last = pageKeys.get(pageKeys.size() - 1);
+		String nextCursor = hasMore ? new KeysetCursor((Instant) last[1], (Long) last[0]).encode() : null;
+		return new PurchaseOrderPage(items, nextCursor, hasMore);
+	}
+
+	private TypedQuery<Object[]> buildQuery(PurchaseOrderCriteria c, KeysetCursor cursor) {
+		StringBuilder jpql = new StringBuilder("select po.id, po.receivedAt from PurchaseOrderEntity po where 1 = 1");
+		if (c.from() != null) jpql.append(" and po.receivedAt >= :from");
+		if (c.to() != null) jpql.append(" and po.receivedAt <= :to");
+		if (c.supplier() != null) jpql.append(" and po.supplier = :supplier");
+		if (c.invoiceNumber() != null) jpql.append(" and po.invoiceNumber = :invoiceNumber");
+		if (cursor != null) {
+			jpql.append(" and (po.receivedAt < :cursorAt or (po.receivedAt = :cursorAt and po.id < :cursorId))");
+		}
+		jpql.append(" order by po.receivedAt desc, po.id desc");
+
+		TypedQuery<Object[]> q = entityManager.createQuery(jpql.toString(), Object[].class);
+		if (c.from() != null) q.setParameter("from", c.from());
+		if (c.to() != null) q.setParameter("to", c.to());
+		if (c.supplier() != null) q.setParameter("supplier", c.supplier());
+		if (c.invoiceNumber() != null) q.setParameter("invoiceNumber", c.invoiceNumber());
+		if (cursor != null) {
+			q.setParameter("cursorAt", cursor.at());
+			q.setParameter("cursorId", cursor.id());
+		}
+		return q;
+	}
+
+	/**
+	 * The supplier must match as entered: deliveries of one supplier are read from (supplier, received_at, id).
+	 * An invoice number usually picks out a single purchase.
+	 */
+	public record PurchaseOrderCriteria(Instant from, Instant to, String supplier, String invoiceNumber) {
+	}
+
+	public record PurchaseOrderPage(List<PurchaseOrderEntity> items, String nextCursor, boolean hasMore) {
+	}
+}
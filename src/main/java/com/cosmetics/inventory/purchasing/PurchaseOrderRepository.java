@@ -1,6 +1,28 @@
 package com.cosmetics.inventory.purchasing;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrderEntity, Long> {
+	@Query("select distinct po from PurchaseOrderEntity po left join fetch po.lines l left join fetch l.product left join fetch l.batch " +
+			"where po.id = :id")
+	Optional<PurchaseOrderEntity> findWithLinesById(@Param("id") long id);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select po from PurchaseOrderEntity po where po.id = :id")
+	Optional<PurchaseOrderEntity> lockById(@Param("id") long id);
+
+	/**
+	 * Loads a purchase for an edit or delete, holding its row so concurrent changes apply one by one and each sees
+	 * the quantities the previous one left. The row is locked first and the lines fetched after, because Postgres
+	 * cannot lock the outer-joined side of the fetch query.
+	 */
+	default Optional<PurchaseOrderEntity> lockWithLinesById(long id) {
+		return lockById(id).flatMap(po -> findWithLinesById(id));
+	}
 }
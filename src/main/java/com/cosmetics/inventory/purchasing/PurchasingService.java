@@ -2,6 +2,7 @@ package com.cosmetics.inventory.purchasing;
 
 import com.cosmetics.inventory.inventory.InventoryItemEntity;
 import com.cosmetics.inventory.inventory.InventoryRepository;
+import com.cosmetics.inventory.inventory.InventoryStockService;
 import com.cosmetics.inventory.product.ProductBatchEntity;
 import com.cosmetics.inventory.product.ProductBatchRepository;
 import com.cosmetics.inventory.product.ProductEntity;
@@ -10,13 +11,23 @@ import com.cosmetics.inventory.sales.SalesDeductionRepository;
 import com.cosmetics.inventory.stockmovement.StockMovementEntity;
 import com.cosmetics.inventory.stockmovement.StockMovementRepository;
 import com.cosmetics.inventory.stockmovement.StockMovementType;
+import jakarta.persistence.EntityManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 @Service
 public class PurchasingService {
@@ -26,6 +37,9 @@ public class PurchasingService {
 	private final InventoryRepository inventoryRepository;
 	private final StockMovementRepository stockMovementRepository;
 	private final SalesDeductionRepository salesDeductionRepository;
+	private final InventoryStockService inventoryStockService;
+	private final PurchaseBatchWriter purchaseBatchWriter;
+	private final EntityManager entityManager;
 
 	public PurchasingService(
 			PurchaseOrderRepository purchaseOrderRepository,
@@ -33,7 +47,10 @@ public class PurchasingService {
 			ProductBatchRepository batchRepository,
 			InventoryRepository inventoryRepository,
 			StockMovementRepository stockMovementRepository,
-			SalesDeductionRepository salesDeductionRepository
+			SalesDeductionRepository salesDeductionRepository,
+			InventoryStockService inventoryStockService,
+			PurchaseBatchWriter purchaseBatchWriter,
+			EntityManager entityManager
 	) {
 		this.purchaseOrderRepository = purchaseOrderRepository;
 		this.productRepository = productRepository;
@@ -41,6 +58,9 @@ public class PurchasingService {
 		this.inventoryRepository = inventoryRepository;
 		this.stockMovementRepository = stockMovementRepository;
 		this.salesDeductionRepository = salesDeductionRepository;
+		this.inventoryStockService = inventoryStockService;
+		this.purchaseBatchWriter = purchaseBatchWriter;
+		this.entityManager = entityManager;
 	}
 
 	@Transactional
@@ -53,142 +73,308 @@ public class PurchasingService {
 		po.setSupplier(cmd.supplier());
 		po.setInvoiceNumber(cmd.invoiceNumber());
 		po.setReceivedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
+		po = purchaseOrderRepository.saveAndFlush(po);
 
-		for (ReceivePurchaseLineCommand line : cmd.lines()) {
-			ProductEntity product = productRepository.findById(line.productId()).orElseThrow();
-
-			ProductBatchEntity batch = new ProductBatchEntity();
-			batch.setProduct(product);
-			batch.setBatchNumber(line.batchNumber().trim());
-			batch.setExpiryDate(LocalDate.parse(line.expiryDate()));
-			batch.setCostPrice(BigDecimal.valueOf(line.costPrice()));
-			batch.setQuantityReceived(line.quantityReceived());
-			ProductBatchEntity persistedBatch = batchRepository.save(batch);
-
-			InventoryItemEntity inv = inventoryRepository
-					.findByBatchIdAndLocation(persistedBatch.getId(), "MAIN")
-					.orElseGet(() -> {
-						InventoryItemEntity i = new InventoryItemEntity();
-						i.setBatch(persistedBatch);
-						i.setLocation("MAIN");
-						return i;
-					});
-			inv.setQtyOnHand(inv.getQtyOnHand() + line.quantityReceived());
-			inventoryRepository.save(inv);
-
-			StockMovementEntity mv = new StockMovementEntity();
-			mv.setType(StockMovementType.IN);
-			mv.setBatch(persistedBatch);
-			mv.setQuantity(line.quantityReceived());
-			mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
-			mv.setNote(cmd.invoiceNumber() != null ? ("Purchase invoice: " + cmd.invoiceNumber()) : "Purchase received");
-			stockMovementRepository.save(mv);
-
-			PurchaseOrderLineEntity pol = new PurchaseOrderLineEntity();
-			pol.setProduct(product);
-			pol.setBatch(persistedBatch);
-			pol.setCostPrice(BigDecimal.valueOf(line.costPrice()));
-			pol.setQuantityReceived(line.quantityReceived());
-			po.addLine(pol);
-		}
-
-		return purchaseOrderRepository.save(po);
+		applyPurchaseLines(po, cmd.lines(), cmd.invoiceNumber(), authentication);
+		return reload(po);
 	}
 
+	/**
+	 * Applies an edited invoice as a diff keyed by (product, batch number). Lines that are still there keep their
+	 * batch, which is adjusted in place; only removed lines give their stock back and only new lines create batches.
+	 * The purchase row is locked before the lines are read, so every quantity delta is taken against what the
+	 * previous edit left and two edits raising the same line cannot both add stock for it.
+	 */
 	@Transactional
 	public PurchaseOrderEntity updatePurchase(UpdatePurchaseCommand cmd, Authentication authentication) {
 		if (cmd == null || cmd.id() <= 0) {
 			throw new IllegalArgumentException("Purchase id is required");
 		}
-		PurchaseOrderEntity po = purchaseOrderRepository.findById(cmd.id()).orElseThrow();
-		restoreInventoryForPurchase(po, authentication);
+		PurchaseOrderEntity po = purchaseOrderRepository.lockWithLinesById(cmd.id())
+				.orElseThrow(() -> new NoSuchElementException("Purchase not found: " + cmd.id()));
+		List<PurchaseBatchWriter.NewLine> wanted = parseLines(cmd.lines());
+		String user = authentication != null ? String.valueOf(authentication.getPrincipal()) : null;
+		String note = cmd.invoiceNumber() != null ? ("Purchase edit invoice: " + cmd.invoiceNumber()) : "Purchase edit";
+
+		Map<BatchKey, PurchaseOrderLineEntity> current = new LinkedHashMap<>();
+		for (PurchaseOrderLineEntity line : po.getLines()) {
+			current.put(new BatchKey(line.getProduct().getId(), line.getBatch().getBatchNumber()), line);
+		}
+		Map<PurchaseOrderLineEntity, PurchaseBatchWriter.NewLine> kept = new LinkedHashMap<>();
+		List<PurchaseBatchWriter.NewLine> added = new ArrayList<>();
+		for (PurchaseBatchWriter.NewLine l : wanted) {
+			PurchaseOrderLineEntity line = current.remove(new BatchKey(l.productId(), l.batchNumber()));
+			if (line != null) {
+				kept.put(line, l);
+			} else {
+				added.add(l);
+			}
+		}
+		List<PurchaseOrderLineEntity> removed = new ArrayList<>(current.values());
+
+		// Removed batches and repriced ones must be unsold: sales rollups already hold their cost. Their rows, and
+		// those of reduced lines, are locked first so no sale can slip in between the check and the change.
+		Set<Long> checkSold = new HashSet<>();
+		Set<Long> toLock = new HashSet<>();
+		for (PurchaseOrderLineEntity line : removed) {
+			checkSold.add(line.getBatch().getId());
+		}
+		for (var e : kept.entrySet()) {
+			ProductBatchEntity batch = e.getKey().getBatch();
+			if (batch.getCostPrice().compareTo(e.getValue().costPrice()) != 0) {
+				checkSold.add(batch.getId());
+			}
+			if (e.getValue().quantity() < e.getKey().getQuantityReceived()) {
+				toLock.add(batch.getId());
+			}
+		}
+		toLock.addAll(checkSold);
+		Map<Long, InventoryItemEntity> locked = lockMain(toLock);
+		Set<Long> sold = checkSold.isEmpty() ? Set.of() : new HashSet<>(salesDeductionRepository.findSoldBatchIds(checkSold));
+
+		List<StockMovementEntity> movements = new ArrayList<>();
+		Map<Long, Integer> takeBack = new LinkedHashMap<>();
+		Map<Long, ProductBatchEntity> batches = new HashMap<>();
+		for (PurchaseOrderLineEntity line : removed) {
+			ProductBatchEntity batch = line.getBatch();
+			if (sold.contains(batch.getId())) {
+				throw new IllegalArgumentException("Cannot remove batch " + batch.getBatchNumber() + " from the purchase: it has already been sold");
+			}
+			takeBack.merge(batch.getId(), line.getQuantityReceived(), Integer::sum);
+			batches.put(batch.getId(), batch);
+			movements.add(movement(StockMovementType.RETURN, batch, line.getQuantityReceived(), user, note));
+			po.getLines().remove(line);
+		}
+
+		List<InventoryStockService.Receipt> receipts = new ArrayList<>();
+		for (var e : kept.entrySet()) {
+			PurchaseOrderLineEntity line = e.getKey();
+			PurchaseBatchWriter.NewLine l = e.getValue();
+			ProductBatchEntity batch = line.getBatch();
+			if (!batch.getExpiryDate().equals(l.expiryDate()) || batch.getCostPrice().compareTo(l.costPrice()) != 0) {
+				if (sold.contains(batch.getId())) {
+					throw new IllegalArgumentException("Cannot change the cost of batch " + batch.getBatchNumber() + ": it has already been sold");
+				}
+				inventoryStockService.revalue(batch, l.expiryDate(), l.costPrice());
+			}
+			int delta = l.quantity() - line.getQuantityReceived();
+			if (delta > 0) {
+				receipts.add(new InventoryStockService.Receipt(batch.getId(), batch.getProduct().getId(), batch.getExpiryDate(), batch.getCreatedAt(), batch.getCostPrice(), "MAIN", delta));
+				movements.add(movement(StockMovementType.IN, batch, delta, user, note));
+			} else if (delta < 0) {
+				takeBack.merge(batch.getId(), -delta, Integer::sum);
+				batches.put(batch.getId(), batch);
+				movements.add(movement(StockMovementType.RETURN, batch, -delta, user, note));
+			}
+			batch.setQuantityReceived(l.quantity());
+			line.setCostPrice(l.costPrice());
+			line.setQuantityReceived(l.quantity());
+		}
+		takeBack(locked, takeBack, batches, "Cannot edit purchase");
+		inventoryStockService.receive(receipts);
+		stockMovementRepository.saveAll(movements);
 
 		po.setSupplier(cmd.supplier());
 		po.setInvoiceNumber(cmd.invoiceNumber());
-		po.getLines().clear();
-		applyPurchaseLines(po, cmd.lines(), cmd.invoiceNumber(), authentication);
-		return purchaseOrderRepository.save(po);
+		po = purchaseOrderRepository.saveAndFlush(po);
+		if (!removed.isEmpty()) {
+			List<Long> removedBatchIds = removed.stream().map(line -> line.getBatch().getId()).toList();
+			inventoryRepository.deleteEmptyByBatchIdIn(removedBatchIds);
+		}
+		if (!added.isEmpty()) {
+			requireNewBatches(added);
+			insertLines(po, added, cmd.invoiceNumber(), authentication);
+		}
+		return reload(po);
+	}
+
+	/**
+	 * Adds received lines to an existing purchase, e.g. the later chunks of an imported invoice.
+	 */
+	@Transactional
+	public void receiveMoreLines(long purchaseOrderId, List<ReceivePurchaseLineCommand> lines, Authentication authentication) {
+		PurchaseOrderEntity po = purchaseOrderRepository.lockById(purchaseOrderId)
+				.orElseThrow(() -> new NoSuchElementException("Purchase not found: " + purchaseOrderId));
+		applyPurchaseLines(po, lines, po.getInvoiceNumber(), authentication);
 	}
 
 	@Transactional
 	public boolean deletePurchase(long id, Authentication authentication) {
-		PurchaseOrderEntity po = purchaseOrderRepository.findById(id).orElseThrow();
+		PurchaseOrderEntity po = purchaseOrderRepository.lockWithLinesById(id)
+				.orElseThrow(() -> new NoSuchElementException("Purchase not found: " + id));
 		restoreInventoryForPurchase(po, authentication);
 		purchaseOrderRepository.delete(po);
 		return true;
 	}
 
+	/**
+	 * Takes a purchase's stock back out of MAIN. The affected inventory rows are locked with one query and sold
+	 * batches are found with another before anything changes; the stock is then taken back with a single update.
+	 */
 	private void restoreInventoryForPurchase(PurchaseOrderEntity po, Authentication authentication) {
 		if (po == null) return;
+		Map<Long, Integer> qtyByBatch = new LinkedHashMap<>();
+		Map<Long, ProductBatchEntity> batches = new HashMap<>();
 		for (var line : po.getLines()) {
 			var batch = line.getBatch();
-			if (batch == null) continue;
-			Long batchId = batch.getId();
-			if (batchId == null) continue;
-			if (salesDeductionRepository.existsByBatchId(batchId)) {
-				throw new IllegalArgumentException("Cannot edit/delete purchase: batch " + batch.getBatchNumber() + " has already been sold");
-			}
+			if (batch == null || batch.getId() == null || line.getQuantityReceived() <= 0) continue;
+			qtyByBatch.merge(batch.getId(), line.getQuantityReceived(), Integer::sum);
+			batches.put(batch.getId(), batch);
+		}
+		if (qtyByBatch.isEmpty()) return;
 
-			int qty = line.getQuantityReceived();
-			if (qty <= 0) continue;
-			InventoryItemEntity inv = inventoryRepository.findByBatchIdAndLocation(batchId, "MAIN").orElse(null);
-			if (inv == null || inv.getQtyOnHand() < qty) {
-				throw new IllegalArgumentException("Cannot edit/delete purchase: insufficient stock to rollback batch " + batch.getBatchNumber());
-			}
-			inv.setQtyOnHand(inv.getQtyOnHand() - qty);
-			inventoryRepository.save(inv);
+		Map<Long, InventoryItemEntity> locked = lockMain(qtyByBatch.keySet());
+		List<Long> sold = salesDeductionRepository.findSoldBatchIds(qtyByBatch.keySet());
+		if (!sold.isEmpty()) {
+			throw new IllegalArgumentException("Cannot edit/delete purchase: batch " + batches.get(sold.get(0)).getBatchNumber() + " has already been sold");
+		}
 
-			StockMovementEntity mv = new StockMovementEntity();
-			mv.setType(StockMovementType.RETURN);
-			mv.setBatch(batch);
-			mv.setQuantity(qty);
-			mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
-			mv.setNote(po.getInvoiceNumber() != null ? ("Purchase rollback invoice: " + po.getInvoiceNumber()) : "Purchase rollback");
-			stockMovementRepository.save(mv);
+		String user = authentication != null ? String.valueOf(authentication.getPrincipal()) : null;
+		String note = po.getInvoiceNumber() != null ? ("Purchase rollback invoice: " + po.getInvoiceNumber()) : "Purchase rollback";
+		List<StockMovementEntity> movements = new ArrayList<>(qtyByBatch.size());
+		for (var e : qtyByBatch.entrySet()) {
+			movements.add(movement(StockMovementType.RETURN, batches.get(e.getKey()), e.getValue(), user, note));
 		}
+		takeBack(locked, qtyByBatch, batches, "Cannot edit/delete purchase");
+		stockMovementRepository.saveAll(movements);
+		inventoryRepository.deleteEmptyByBatchIdIn(qtyByBatch.keySet());
 	}
 
+	/**
+	 * Receives a delivery set-wise: products are resolved in one query, batches, purchase lines and IN movements
+	 * are inserted in JDBC batches, and stock is added with a single inventory upsert.
+	 */
 	private void applyPurchaseLines(PurchaseOrderEntity po, List<ReceivePurchaseLineCommand> lines, String invoice, Authentication authentication) {
+		List<PurchaseBatchWriter.NewLine> newLines = parseLines(lines);
+		requireNewBatches(newLines);
+		insertLines(po, newLines, invoice, authentication);
+	}
+
+	/**
+	 * Validates the lines of a delivery and checks that their products exist.
+	 */
+	private List<PurchaseBatchWriter.NewLine> parseLines(List<ReceivePurchaseLineCommand> lines) {
 		if (lines == null || lines.isEmpty()) {
 			throw new IllegalArgumentException("At least one line is required");
 		}
+		List<PurchaseBatchWriter.NewLine> newLines = new ArrayList<>(lines.size());
+		Set<Long> productIds = new HashSet<>();
+		Set<BatchKey> seen = new HashSet<>();
 		for (ReceivePurchaseLineCommand line : lines) {
-			ProductEntity product = productRepository.findById(line.productId()).orElseThrow();
-
-			ProductBatchEntity batch = new ProductBatchEntity();
-			batch.setProduct(product);
-			batch.setBatchNumber(line.batchNumber().trim());
-			batch.setExpiryDate(LocalDate.parse(line.expiryDate()));
-			batch.setCostPrice(BigDecimal.valueOf(line.costPrice()));
-			batch.setQuantityReceived(line.quantityReceived());
-			ProductBatchEntity persistedBatch = batchRepository.save(batch);
-
-			InventoryItemEntity inv = inventoryRepository
-					.findByBatchIdAndLocation(persistedBatch.getId(), "MAIN")
-					.orElseGet(() -> {
-						InventoryItemEntity i = new InventoryItemEntity();
-						i.setBatch(persistedBatch);
-						i.setLocation("MAIN");
-						return i;
-					});
-			inv.setQtyOnHand(inv.getQtyOnHand() + line.quantityReceived());
-			inventoryRepository.save(inv);
-
-			StockMovementEntity mv = new StockMovementEntity();
-			mv.setType(StockMovementType.IN);
-			mv.setBatch(persistedBatch);
-			mv.setQuantity(line.quantityReceived());
-			mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
-			mv.setNote(invoice != null ? ("Purchase invoice: " + invoice) : "Purchase received");
-			stockMovementRepository.save(mv);
-
-			PurchaseOrderLineEntity pol = new PurchaseOrderLineEntity();
-			pol.setProduct(product);
-			pol.setBatch(persistedBatch);
-			pol.setCostPrice(BigDecimal.valueOf(line.costPrice()));
-			pol.setQuantityReceived(line.quantityReceived());
-			po.addLine(pol);
+			if (line.quantityReceived() <= 0) {
+				throw new IllegalArgumentException("Quantity received must be > 0");
+			}
+			if (line.batchNumber() == null || line.batchNumber().isBlank()) {
+				throw new IllegalArgumentException("Batch number is required");
+			}
+			String batchNumber = line.batchNumber().trim();
+			if (!seen.add(new BatchKey(line.productId(), batchNumber))) {
+				throw new IllegalArgumentException("Batch " + batchNumber + " appears more than once for product " + line.productId());
+			}
+			LocalDate expiryDate;
+			try {
+				expiryDate = LocalDate.parse(line.expiryDate());
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Invalid expiry date: " + line.expiryDate());
+			}
+			newLines.add(new PurchaseBatchWriter.NewLine(line.productId(), batchNumber, expiryDate, line.costPrice(), line.quantityReceived()));
+			productIds.add(line.productId());
+		}
+
+		Set<Long> found = new HashSet<>();
+		for (ProductEntity p : productRepository.findAllById(productIds)) {
+			found.add(p.getId());
+		}
+		for (Long productId : productIds) {
+			if (!found.contains(productId)) {
+				throw new NoSuchElementException("Product not found: " + productId);
+			}
+		}
+		return newLines;
+	}
+
+	private void requireNewBatches(List<PurchaseBatchWriter.NewLine> lines) {
+		Set<Long> productIds = new HashSet<>();
+		Set<String> batchNumbers = new HashSet<>();
+		Set<BatchKey> keys = new HashSet<>();
+		for (PurchaseBatchWriter.NewLine l : lines) {
+			productIds.add(l.productId());
+			batchNumbers.add(l.batchNumber());
+			keys.add(new BatchKey(l.productId(), l.batchNumber()));
+		}
+		for (ProductBatchEntity existing : batchRepository.findByProductIdInAndBatchNumberIn(productIds, batchNumbers)) {
+			if (keys.contains(new BatchKey(existing.getProduct().getId(), existing.getBatchNumber()))) {
+				throw new IllegalArgumentException("Batch " + existing.getBatchNumber() + " already exists for product " + existing.getProduct().getSku());
+			}
+		}
+	}
+
+	private void insertLines(PurchaseOrderEntity po, List<PurchaseBatchWriter.NewLine> newLines, String invoice, Authentication authentication) {
+		Instant now = Instant.now();
+		List<Long> batchIds = purchaseBatchWriter.insert(
+				po.getId(),
+				newLines,
+				now,
+				authentication != null ? String.valueOf(authentication.getPrincipal()) : null,
+				invoice != null ? ("Purchase invoice: " + invoice) : "Purchase received"
+		);
+
+		List<InventoryStockService.Receipt> receipts = new ArrayList<>(newLines.size());
+		for (int i = 0; i < newLines.size(); i++) {
+			PurchaseBatchWriter.NewLine l = newLines.get(i);
+			receipts.add(new InventoryStockService.Receipt(batchIds.get(i), l.productId(), l.expiryDate(), now, l.costPrice(), "MAIN", l.quantity()));
+		}
+		inventoryStockService.receive(receipts);
+	}
+
+	/**
+	 * Locks the MAIN rows of the given batches in one query, keyed by batch id.
+	 */
+	private Map<Long, InventoryItemEntity> lockMain(Collection<Long> batchIds) {
+		Map<Long, InventoryItemEntity> byBatch = new HashMap<>();
+		if (batchIds.isEmpty()) return byBatch;
+		for (InventoryItemEntity inv : inventoryRepository.lockByBatchIdIn(batchIds, "MAIN")) {
+			byBatch.put(inv.getBatch().getId(), inv);
 		}
+		return byBatch;
+	}
+
+	/**
+	 * Takes received stock back out of rows locked by {@link #lockMain}, with a single update.
+	 */
+	private void takeBack(Map<Long, InventoryItemEntity> locked, Map<Long, Integer> qtyByBatch, Map<Long, ProductBatchEntity> batches, String failure) {
+		if (qtyByBatch.isEmpty()) return;
+		List<InventoryStockService.Withdrawal> withdrawals = new ArrayList<>(qtyByBatch.size());
+		for (var e : qtyByBatch.entrySet()) {
+			InventoryItemEntity inv = locked.get(e.getKey());
+			if (inv == null || inv.getQtyOnHand() < e.getValue()) {
+				throw new IllegalArgumentException(failure + ": insufficient stock to rollback batch " + batches.get(e.getKey()).getBatchNumber());
+			}
+			withdrawals.add(new InventoryStockService.Withdrawal(inv, e.getValue()));
+		}
+		inventoryStockService.withdraw(withdrawals);
+	}
+
+	private static StockMovementEntity movement(StockMovementType type, ProductBatchEntity batch, int qty, String user, String note) {
+		StockMovementEntity mv = new StockMovementEntity();
+		mv.setType(type);
+		mv.setBatch(batch);
+		mv.setQuantity(qty);
+		mv.setCreatedBy(user);
+		mv.setNote(note);
+		return mv;
+	}
+
+	/**
+	 * Lines written with JDBC are not in the persistence context, so the order is loaded again with them.
+	 */
+	private PurchaseOrderEntity reload(PurchaseOrderEntity po) {
+		entityManager.flush();
+		entityManager.detach(po);
+		return purchaseOrderRepository.findWithLinesById(po.getId()).orElseThrow();
+	}
+
+	private record BatchKey(long productId, String batchNumber) {
 	}
 
 	public record ReceivePurchaseCommand(String supplier, String invoiceNumber, List<ReceivePurchaseLineCommand> lines) {
@@ -197,7 +383,7 @@ public class PurchasingService {
 	public record UpdatePurchaseCommand(long id, String supplier, String invoiceNumber, List<ReceivePurchaseLineCommand> lines) {
 	}
 
-	public record ReceivePurchaseLineCommand(long productId, String batchNumber, String expiryDate, double costPrice,
+	public record ReceivePurchaseLineCommand(long productId, String batchNumber, String expiryDate, BigDecimal costPrice,
 									 int quantityReceived) {
 	}
 }
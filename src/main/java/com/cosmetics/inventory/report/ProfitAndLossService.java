@@ -0,0 +1,145 @@
+package com.cosmetics.inventory.report;
+
+import com.cosmetics.inventory.expense.ExpenseMonthlyRollupEntity;
+import com.cosmetics.inventory.expense.ExpenseMonthlyRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ProfitAndLossService {
+	private static final int MAX_RANGE_MONTHS = 240;
+
+	private final SalesMonthlyRollupRepository salesMonthlyRollupRepository;
+	private final ExpenseMonthlyRollupRepository expenseMonthlyRollupRepository;
+
+	public ProfitAndLossService(SalesMonthlyRollupRepository salesMonthlyRollupRepository, ExpenseMonthlyRollupRepository expenseMonthlyRollupRepository) {
+		this.salesMonthlyRollupRepository = salesMonthlyRollupRepository;
+		this.expenseMonthlyRollupRepository = expenseMonthlyRollupRepository;
+	}
+
+	@Transactional(readOnly = true)
+	public ProfitAndLoss profitAndLoss(String from, String to) {
+		YearMonth fromMonth = parseMonth(from);
+		YearMonth toMonth = parseMonth(to);
+		if (toMonth.isBefore(fromMonth)) {
+			throw new IllegalArgumentException("To month must not be before from month");
+		}
+		int months = (int) ChronoUnit.MONTHS.between(fromMonth, toMonth) + 1;
+		if (months > MAX_RANGE_MONTHS) {
+			throw new IllegalArgumentException("Month range is too large");
+		}
+
+		long[] revenue = new long[months];
+		long[] cost = new long[months];
+		long[] expenses = new long[months];
+
+		for (var row : salesMonthlyRollupRepository.summarizeBetween(fromMonth.atDay(1), toMonth.atDay(1))) {
+			int i = (int) ChronoUnit.MONTHS.between(fromMonth, YearMonth.from(row.getMonthStart()));
+			revenue[i] += SalesAggregator.toMinor(row.getRevenue());
+			cost[i] += SalesAggregator.toMinor(row.getCost());
+		}
+
+		Map<Long, CategoryTotals> byCategory = new LinkedHashMap<>();
+		for (ExpenseMonthlyRollupEntity r : expenseMonthlyRollupRepository.findBetween(fromMonth.atDay(1), toMonth.atDay(1))) {
+			int i = (int) ChronoUnit.MONTHS.between(fromMonth, YearMonth.from(r.getMonthStart()));
+			long amount = SalesAggregator.toMinor(r.getAmount());
+			expenses[i] += amount;
+			var category = r.getCategory();
+			byCategory.computeIfAbsent(category.getId(), id -> new CategoryTotals(id, category.getName())).amount += amount;
+		}
+
+		List<ProfitAndLossMonth> monthRows = new ArrayList<>(months);
+		long totalRevenue = 0;
+		long totalCost = 0;
+		long totalExpenses = 0;
+		for (int i = 0; i < months; i++) {
+			monthRows.add(new ProfitAndLossMonth(
+					fromMonth.plusMonths(i).toString(),
+					SalesAggregator.toDouble(revenue[i]),
+					SalesAggregator.toDouble(cost[i]),
+					SalesAggregator.toDouble(revenue[i] - cost[i]),
+					SalesAggregator.toDouble(expenses[i]),
+					SalesAggregator.toDouble(revenue[i] - cost[i] - expenses[i])
+			));
+			totalRevenue += revenue[i];
+			totalCost += cost[i];
+			totalExpenses += expenses[i];
+		}
+
+		return new ProfitAndLoss(
+				fromMonth.toString(),
+				toMonth.toString(),
+				SalesAggregator.toDouble(totalRevenue),
+				SalesAggregator.toDouble(totalCost),
+				SalesAggregator.toDouble(totalRevenue - totalCost),
+				SalesAggregator.toDouble(totalExpenses),
+				SalesAggregator.toDouble(totalRevenue - totalCost - totalExpenses),
+				monthRows,
+				byCategory.values().stream()
+						.sorted(Comparator.comparingLong((CategoryTotals t) -> t.amount).reversed())
+						.map(t -> new ProfitAndLossExpenseCategory(t.categoryId, t.categoryName, SalesAggregator.toDouble(t.amount)))
+						.toList()
+		);
+	}
+
+	private static YearMonth parseMonth(String value) {
+		if (value == null || value.isBlank()) {
+			throw new IllegalArgumentException("From and to months are required");
+		}
+		try {
+			return YearMonth.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid month (expected yyyy-MM): " + value.trim());
+		}
+	}
+
+	private static final class CategoryTotals {
+		private final Long categoryId;
+		private final String categoryName;
+		private long amount;
+
+		private CategoryTotals(Long categoryId, String categoryName) {
+			this.categoryId = categoryId;
+			this.categoryName = categoryName;
+		}
+	}
+
+	public record ProfitAndLoss(
+			String fromMonth,
+			String toMonth,
+			double revenue,
+			double costOfGoodsSold,
+			double grossProfit,
+			double totalExpenses,
+			double netProfit,
+			List<ProfitAndLossMonth> months,
+			List<ProfitAndLossExpenseCategory> expensesByCategory
+	) {
+	}
+
+	public record ProfitAndLossMonth(
+			String month,
+			double revenue,
+			double costOfGoodsSold,
+			double grossProfit,
+			double expenses,
+			double netProfit
+	) {
+	}
+
+	public record ProfitAndLossExpenseCategory(
+			Long categoryId,
+			String categoryName,
+			double amount
+	) {
+	}
+}
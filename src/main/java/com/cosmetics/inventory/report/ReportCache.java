@@ -0,0 +1,193 @@
+package com.cosmetics.inventory.report;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache for report query results. Each entry is tagged with the data it was built from; a committed
+ * write bumps the generation of the tags it touched, which makes every entry built from older data stale.
+ */
+@Component
+public class ReportCache {
+	/** Stock quantities, batches and anything derived from them. */
+	public static final String STOCK = "stock";
+	/** Product names and SKUs shown in report rows. */
+	public static final String CATALOG = "catalog";
+
+	private final int maxEntries;
+	private final long ttlNanos;
+	private final TransactionTemplate readOnlyTx;
+	private final Map<Key, Entry> entries;
+	private final Map<Object, AtomicLong> generations = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	public ReportCache(ReportProperties reportProperties, PlatformTransactionManager transactionManager) {
+		this.maxEntries = reportProperties.cacheMaxEntriesOrDefault();
+		this.ttlNanos = reportProperties.cacheTtlOrDefault().toNanos();
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				if (size() > maxEntries) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public static Key key(String query, Object... args) {
+		return new Key(query, Arrays.asList(args));
+	}
+
+	public static Object salesDay(LocalDate day) {
+		return new SalesDayTag(day);
+	}
+
+	/**
+	 * Returns the cached value for {@code key}, or runs {@code loader} in a read-only transaction and caches the
+	 * result unless one of {@code tags} was invalidated while it was loading.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(Key key, List<Object> tags, Supplier<T> loader) {
+		long now = System.nanoTime();
+		synchronized (entries) {
+			Entry e = entries.get(key);
+			if (e != null) {
+				if (now - e.createdAt < ttlNanos && isCurrent(e.tags, e.generations)) {
+					hits.increment();
+					return (T) e.value;
+				}
+				entries.remove(key);
+			}
+		}
+		misses.increment();
+
+		long[] snapshot = snapshot(tags);
+		T value = readOnlyTx.execute(status -> loader.get());
+		if (maxEntries > 0) {
+			synchronized (entries) {
+				if (isCurrent(tags, snapshot)) {
+					entries.put(key, new Entry(value, tags, snapshot, now));
+				}
+			}
+		}
+		return value;
+	}
+
+	public void invalidate(Object tag) {
+		generations.computeIfAbsent(tag, t -> new AtomicLong()).incrementAndGet();
+		invalidations.increment();
+	}
+
+	/**
+	 * Invalidates {@code tag} once the current transaction commits, or right away when there is none.
+	 */
+	public void invalidateAfterCommit(Object tag) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			invalidate(tag);
+			return;
+		}
+		PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(PendingInvalidations.class);
+		if (pending == null) {
+			PendingInvalidations created = new PendingInvalidations();
+			TransactionSynchronizationManager.bindResource(PendingInvalidations.class, created);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					created.tags.forEach(ReportCache.this::invalidate);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(PendingInvalidations.class);
+				}
+			});
+			pending = created;
+		}
+		pending.tags.add(tag);
+	}
+
+	public Stats stats() {
+		int size;
+		synchronized (entries) {
+			size = entries.size();
+		}
+		return new Stats(
+				hits.sum(),
+				misses.sum(),
+				evictions.sum(),
+				invalidations.sum(),
+				size,
+				maxEntries,
+				ttlNanos / 1_000_000_000L
+		);
+	}
+
+	private long[] snapshot(List<Object> tags) {
+		long[] result = new long[tags.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = generation(tags.get(i));
+		}
+		return result;
+	}
+
+	private boolean isCurrent(List<Object> tags, long[] snapshot) {
+		for (int i = 0; i < snapshot.length; i++) {
+			if (generation(tags.get(i)) != snapshot[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long generation(Object tag) {
+		AtomicLong g = generations.get(tag);
+		return g != null ? g.get() : 0L;
+	}
+
+	public record Key(String query, List<Object> args) {
+	}
+
+	public record Stats(
+			long hits,
+			long misses,
+			long evictions,
+			long invalidations,
+			int size,
+			int maxEntries,
+			long ttlSeconds
+	) {
+	}
+
+	private record Entry(Object value, List<Object> tags, long[] generations, long createdAt) {
+	}
+
+	private record SalesDayTag(LocalDate day) {
+	}
+
+	private static final class PendingInvalidations {
+		private final Set<Object> tags = new HashSet<>();
+	}
+}
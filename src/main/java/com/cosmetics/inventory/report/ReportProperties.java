@@ -0,0 +1,30 @@
+package com.cosmetics.inventory.report;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+@ConfigurationProperties(prefix = "app.reports")
+public record ReportProperties(
+		String timeZone,
+		Integer parallelism,
+		Integer cacheMaxEntries,
+		Duration cacheTtl
+) {
+	public ZoneId zoneId() {
+		return (timeZone == null || timeZone.isBlank()) ? ZoneId.of("UTC") : ZoneId.of(timeZone.trim());
+	}
+
+	public int parallelismOrDefault() {
+		return (parallelism == null || parallelism < 1) ? 4 : parallelism;
+	}
+
+	public int cacheMaxEntriesOrDefault() {
+		return (cacheMaxEntries == null || cacheMaxEntries < 0) ? 500 : cacheMaxEntries;
+	}
+
+	public Duration cacheTtlOrDefault() {
+		return (cacheTtl == null || cacheTtl.isNegative()) ? Duration.ofMinutes(5) : cacheTtl;
+	}
+}
@@ -0,0 +1,156 @@
+package com.cosmetics.inventory.report;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Per-product quantity, revenue and cost accumulator used by the sales reports. Money is held as longs in
+ * ten-thousandths (the scale of the money columns), so folding rows in is exact and allocation-free; values are
+ * only turned back into decimals when the result is materialized.
+ */
+public final class SalesAggregator {
+	public static final int SCALE = 4;
+
+	private static final int EMPTY = -1;
+
+	private int[] table;
+	private long[] productIds;
+	private String[] skus;
+	private String[] names;
+	private long[] quantities;
+	private long[] revenues;
+	private long[] costs;
+	private int size;
+
+	private long totalQuantity;
+	private long totalRevenue;
+	private long totalCost;
+
+	public SalesAggregator() {
+		this(16);
+	}
+
+	public SalesAggregator(int expectedProducts) {
+		int capacity = Math.max(4, Integer.highestOneBit(Math.max(1, expectedProducts) - 1) << 1);
+		productIds = new long[capacity];
+		skus = new String[capacity];
+		names = new String[capacity];
+		quantities = new long[capacity];
+		revenues = new long[capacity];
+		costs = new long[capacity];
+		table = new int[capacity * 2];
+		Arrays.fill(table, EMPTY);
+	}
+
+	public static long toMinor(BigDecimal amount) {
+		if (amount == null || amount.signum() == 0) return 0L;
+		return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	public static BigDecimal toDecimal(long minor) {
+		return BigDecimal.valueOf(minor, SCALE);
+	}
+
+	public static double toDouble(long minor) {
+		return toDecimal(minor).doubleValue();
+	}
+
+	public void add(long productId, String sku, String name, long quantity, BigDecimal revenue, BigDecimal cost) {
+		add(productId, sku, name, quantity, toMinor(revenue), toMinor(cost));
+	}
+
+	public void add(long productId, String sku, String name, long quantity, long revenueMinor, long costMinor) {
+		int i = slot(productId, sku, name);
+		quantities[i] = Math.addExact(quantities[i], quantity);
+		revenues[i] = Math.addExact(revenues[i], revenueMinor);
+		costs[i] = Math.addExact(costs[i], costMinor);
+		totalQuantity = Math.addExact(totalQuantity, quantity);
+		totalRevenue = Math.addExact(totalRevenue, revenueMinor);
+		totalCost = Math.addExact(totalCost, costMinor);
+	}
+
+	public void addAll(SalesAggregator other) {
+		for (int i = 0; i < other.size; i++) {
+			add(other.productIds[i], other.skus[i], other.names[i], other.quantities[i], other.revenues[i], other.costs[i]);
+		}
+	}
+
+	public long totalQuantity() {
+		return totalQuantity;
+	}
+
+	public long totalRevenue() {
+		return totalRevenue;
+	}
+
+	public long totalCost() {
+		return totalCost;
+	}
+
+	/**
+	 * Builds one item per product, ordered by revenue, highest first.
+	 */
+	public <T> List<T> items(ItemMapper<T> mapper) {
+		List<Integer> order = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			order.add(i);
+		}
+		// Stable, so products with equal revenue keep the order they were first seen in.
+		order.sort(Comparator.comparingLong((Integer i) -> revenues[i]).reversed());
+		List<T> result = new ArrayList<>(size);
+		for (int i : order) {
+			result.add(mapper.map(productIds[i], skus[i], names[i], quantities[i], revenues[i], costs[i]));
+		}
+		return result;
+	}
+
+	private int slot(long productId, String sku, String name) {
+		int mask = table.length - 1;
+		int h = Long.hashCode(productId * 0x9E3779B97F4A7C15L) & mask;
+		while (true) {
+			int i = table[h];
+			if (i == EMPTY) break;
+			if (productIds[i] == productId) return i;
+			h = (h + 1) & mask;
+		}
+		if (size == productIds.length) {
+			grow();
+			return slot(productId, sku, name);
+		}
+		int i = size++;
+		table[h] = i;
+		productIds[i] = productId;
+		skus[i] = sku;
+		names[i] = name;
+		return i;
+	}
+
+	private void grow() {
+		int capacity = productIds.length * 2;
+		productIds = Arrays.copyOf(productIds, capacity);
+		skus = Arrays.copyOf(skus, capacity);
+		names = Arrays.copyOf(names, capacity);
+		quantities = Arrays.copyOf(quantities, capacity);
+		revenues = Arrays.copyOf(revenues, capacity);
+		costs = Arrays.copyOf(costs, capacity);
+		table = new int[capacity * 2];
+		Arrays.fill(table, EMPTY);
+		int mask = table.length - 1;
+		for (int i = 0; i < size; i++) {
+			int h = Long.hashCode(productIds[i] * 0x9E3779B97F4A7C15L) & mask;
+			while (table[h] != EMPTY) {
+				h = (h + 1) & mask;
+			}
+			table[h] = i;
+		}
+	}
+
+	@FunctionalInterface
+	public interface ItemMapper<T> {
+		T map(long productId, String sku, String productName, long quantity, long revenueMinor, long costMinor);
+	}
+}
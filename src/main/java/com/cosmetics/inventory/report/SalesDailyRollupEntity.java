@@ -0,0 +1,57 @@
+package com.cosmetics.inventory.report;
+
+import com.cosmetics.inventory.product.ProductEntity;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "sales_daily_product_rollup", uniqueConstraints = {
+		@UniqueConstraint(name = "uq_sales_daily_product_rollup", columnNames = {"sale_day", "product_id"})
+})
+public class SalesDailyRollupEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "sale_day", nullable = false)
+	private LocalDate saleDay;
+
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	@JoinColumn(name = "product_id", nullable = false)
+	private ProductEntity product;
+
+	@Column(nullable = false)
+	private int quantity;
+
+	@Column(nullable = false, precision = 19, scale = 4)
+	private BigDecimal revenue = BigDecimal.ZERO;
+
+	@Column(nullable = false, precision = 19, scale = 4)
+	private BigDecimal cost = BigDecimal.ZERO;
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDate getSaleDay() {
+		return saleDay;
+	}
+
+	public ProductEntity getProduct() {
+		return product;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public BigDecimal getRevenue() {
+		return revenue;
+	}
+
+	public BigDecimal getCost() {
+		return cost;
+	}
+}
@@ -0,0 +1,37 @@
+package com.cosmetics.inventory.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollupEntity, Long> {
+	@Query("select r from SalesDailyRollupEntity r join fetch r.product where r.saleDay = :day and r.quantity <> 0")
+	List<SalesDailyRollupEntity> findByDay(@Param("day") LocalDate day);
+
+	@Query("select r from SalesDailyRollupEntity r join fetch r.product " +
+			"where r.saleDay >= :fromDay and r.saleDay <= :toDay and r.quantity <> 0")
+	List<SalesDailyRollupEntity> findBetween(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+	@Modifying
+	@Transactional
+	@Query(value = "insert into sales_daily_product_rollup (sale_day, product_id, quantity, revenue, cost) " +
+			"values (:day, :productId, :quantity, :revenue, :cost) " +
+			"on conflict (sale_day, product_id) do update set " +
+			"quantity = sales_daily_product_rollup.quantity + excluded.quantity, " +
+			"revenue = sales_daily_product_rollup.revenue + excluded.revenue, " +
+			"cost = sales_daily_product_rollup.cost + excluded.cost",
+			nativeQuery = true)
+	int addToDay(
+			@Param("day") LocalDate day,
+			@Param("productId") long productId,
+			@Param("quantity") int quantity,
+			@Param("revenue") BigDecimal revenue,
+			@Param("cost") BigDecimal cost
+	);
+}
@@ -0,0 +1,48 @@
+package com.cosmetics.inventory.report;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "sales_monthly_rollup", uniqueConstraints = {
+		@UniqueConstraint(name = "uq_sales_monthly_rollup", columnNames = {"month_start", "slot"})
+})
+public class SalesMonthlyRollupEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "month_start", nullable = false)
+	private LocalDate monthStart;
+
+	@Column(nullable = false)
+	private int slot;
+
+	@Column(nullable = false, precision = 19, scale = 4)
+	private BigDecimal revenue = BigDecimal.ZERO;
+
+	@Column(nullable = false, precision = 19, scale = 4)
+	private BigDecimal cost = BigDecimal.ZERO;
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDate getMonthStart() {
+		return monthStart;
+	}
+
+	public int getSlot() {
+		return slot;
+	}
+
+	public BigDecimal getRevenue() {
+		return revenue;
+	}
+
+	public BigDecimal getCost() {
+		return cost;
+	}
+}
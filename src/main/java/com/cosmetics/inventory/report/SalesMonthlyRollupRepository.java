@@ -0,0 +1,41 @@
+package com.cosmetics.inventory.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesMonthlyRollupRepository extends JpaRepository<SalesMonthlyRollupEntity, Long> {
+	@Query("select r.monthStart as monthStart, sum(r.revenue) as revenue, sum(r.cost) as cost " +
+			"from SalesMonthlyRollupEntity r where r.monthStart >= :fromMonth and r.monthStart <= :toMonth " +
+			"group by r.monthStart")
+	List<MonthTotalsRow> summarizeBetween(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+	@Modifying
+	@Transactional
+	@Query(value = "insert into sales_monthly_rollup (month_start, slot, revenue, cost) " +
+			"values (:month, :slot, :revenue, :cost) " +
+			"on conflict (month_start, slot) do update set " +
+			"revenue = sales_monthly_rollup.revenue + excluded.revenue, " +
+			"cost = sales_monthly_rollup.cost + excluded.cost",
+			nativeQuery = true)
+	int addToMonth(
+			@Param("month") LocalDate month,
+			@Param("slot") int slot,
+			@Param("revenue") BigDecimal revenue,
+			@Param("cost") BigDecimal cost
+	);
+
+	interface MonthTotalsRow {
+		LocalDate getMonthStart();
+
+		BigDecimal getRevenue();
+
+		BigDecimal getCost();
+	}
+}
@@ -0,0 +1,217 @@
+package com.cosmetics.inventory.report;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class SalesReportService {
+	private static final int MAX_RANGE_DAYS = 3660;
+
+	private final SalesDailyRollupRepository rollupRepository;
+	private final TransactionTemplate readOnlyTx;
+	private final int parallelism;
+	private final ExecutorService executor;
+
+	public SalesReportService(SalesDailyRollupRepository rollupRepository, PlatformTransactionManager transactionManager, ReportProperties reportProperties) {
+		this.rollupRepository = rollupRepository;
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+		this.parallelism = reportProperties.parallelismOrDefault();
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread t = new Thread(r, "sales-report-" + threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	public SalesReport salesReport(LocalDate from, LocalDate to, Granularity granularity) {
+		if (from == null || to == null) {
+			throw new IllegalArgumentException("From and to dates are required");
+		}
+		if (to.isBefore(from)) {
+			throw new IllegalArgumentException("To date must not be before from date");
+		}
+		if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+			throw new IllegalArgumentException("Date range is too large");
+		}
+		Granularity g = granularity != null ? granularity : Granularity.DAY;
+
+		List<Period> periods = splitPeriods(from, to, g);
+		int partitionSize = (periods.size() + parallelism - 1) / parallelism;
+
+		List<Future<List<PeriodTotals>>> futures = new ArrayList<>();
+		for (int start = 0; start < periods.size(); start += partitionSize) {
+			List<Period> partition = periods.subList(start, Math.min(start + partitionSize, periods.size()));
+			futures.add(executor.submit(() -> readOnlyTx.execute(status -> aggregate(partition))));
+		}
+
+		List<PeriodTotals> periodTotals = new ArrayList<>(periods.size());
+		for (Future<List<PeriodTotals>> f : futures) {
+			periodTotals.addAll(await(f));
+		}
+		return merge(from, to, g, periodTotals);
+	}
+
+	private List<PeriodTotals> aggregate(List<Period> partition) {
+		List<PeriodTotals> result = new ArrayList<>(partition.size());
+		List<LocalDate> starts = new ArrayList<>(partition.size());
+		for (Period p : partition) {
+			result.add(new PeriodTotals(p));
+			starts.add(p.start());
+		}
+
+		LocalDate fromDay = partition.get(0).start();
+		LocalDate toDay = partition.get(partition.size() - 1).end();
+		for (SalesDailyRollupEntity r : rollupRepository.findBetween(fromDay, toDay)) {
+			int idx = Collections.binarySearch(starts, r.getSaleDay());
+			if (idx < 0) {
+				idx = -idx - 2;
+			}
+			var p = r.getProduct();
+			result.get(idx).totals.add(p.getId(), p.getSku(), p.getName(), r.getQuantity(), r.getRevenue(), r.getCost());
+		}
+		return result;
+	}
+
+	private SalesReport merge(LocalDate from, LocalDate to, Granularity granularity, List<PeriodTotals> periodTotals) {
+		SalesAggregator items = new SalesAggregator();
+		List<SalesReportPeriod> periods = new ArrayList<>(periodTotals.size());
+		for (PeriodTotals pt : periodTotals) {
+			SalesAggregator t = pt.totals;
+			periods.add(new SalesReportPeriod(
+					pt.period.start().toString(),
+					pt.period.end().toString(),
+					Math.toIntExact(t.totalQuantity()),
+					SalesAggregator.toDouble(t.totalRevenue()),
+					SalesAggregator.toDouble(t.totalCost()),
+					SalesAggregator.toDouble(t.totalRevenue() - t.totalCost())
+			));
+			items.addAll(t);
+		}
+
+		return new SalesReport(
+				from.toString(),
+				to.toString(),
+				granularity.name(),
+				Math.toIntExact(items.totalQuantity()),
+				SalesAggregator.toDouble(items.totalRevenue()),
+				SalesAggregator.toDouble(items.totalCost()),
+				SalesAggregator.toDouble(items.totalRevenue() - items.totalCost()),
+				periods,
+				items.items((productId, sku, productName, quantity, revenue, cost) -> new SalesReportItem(
+						productId,
+						sku,
+						productName,
+						Math.toIntExact(quantity),
+						SalesAggregator.toDouble(revenue),
+						SalesAggregator.toDouble(cost),
+						SalesAggregator.toDouble(revenue - cost)
+				))
+		);
+	}
+
+	static List<Period> splitPeriods(LocalDate from, LocalDate to, Granularity granularity) {
+		List<Period> periods = new ArrayList<>();
+		LocalDate start = from;
+		while (!start.isAfter(to)) {
+			LocalDate end = switch (granularity) {
+				case DAY -> start;
+				case WEEK -> start.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+				case MONTH -> start.with(TemporalAdjusters.lastDayOfMonth());
+			};
+			if (end.isAfter(to)) {
+				end = to;
+			}
+			periods.add(new Period(start, end));
+			start = end.plusDays(1);
+		}
+		return periods;
+	}
+
+	private static <T> T await(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Sales report was interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new IllegalStateException("Sales report failed", e.getCause());
+		}
+	}
+
+	record Period(LocalDate start, LocalDate end) {
+	}
+
+	private static final class PeriodTotals {
+		private final Period period;
+		private final SalesAggregator totals = new SalesAggregator();
+
+		private PeriodTotals(Period period) {
+			this.period = period;
+		}
+	}
+
+	public enum Granularity {
+		DAY,
+		WEEK,
+		MONTH
+	}
+
+	public record SalesReport(
+			String from,
+			String to,
+			String granularity,
+			int totalQuantitySold,
+			double totalSalesAmount,
+			double totalCostAmount,
+			double totalProfitAmount,
+			List<SalesReportPeriod> periods,
+			List<SalesReportItem> items
+	) {
+	}
+
+	public record SalesReportPeriod(
+			String periodStart,
+			String periodEnd,
+			int quantitySold,
+			double salesAmount,
+			double costAmount,
+			double profitAmount
+	) {
+	}
+
+	public record SalesReportItem(
+			Long productId,
+			String sku,
+			String productName,
+			int quantitySold,
+			double salesAmount,
+			double costAmount,
+			double profitAmount
+	) {
+	}
+}
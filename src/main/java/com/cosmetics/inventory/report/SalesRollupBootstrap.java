@@ -0,0 +1,70 @@
+package com.cosmetics.inventory.report;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+@Component
+public class SalesRollupBootstrap implements ApplicationRunner {
+	private final DataSource dataSource;
+	private final ReportProperties reportProperties;
+
+	public SalesRollupBootstrap(DataSource dataSource, ReportProperties reportProperties) {
+		this.dataSource = dataSource;
+		this.reportProperties = reportProperties;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		String sqlLock = "LOCK TABLE sales_orders, sales_order_lines, sales_deductions IN SHARE MODE";
+		String sqlExists = "SELECT EXISTS (SELECT 1 FROM sales_daily_product_rollup)";
+		String sqlBackfill = "INSERT INTO sales_daily_product_rollup (sale_day, product_id, quantity, revenue, cost) " +
+				"SELECT x.sale_day, x.product_id, SUM(x.quantity), SUM(x.revenue), SUM(x.cost) FROM (" +
+				"SELECT CAST(so.sold_at AT TIME ZONE ? AS date) AS sale_day, l.product_id, l.quantity, " +
+				"l.quantity * l.unit_price AS revenue, " +
+				"COALESCE((SELECT SUM(d.quantity * b.cost_price) FROM sales_deductions d " +
+				"JOIN product_batches b ON b.id = d.batch_id WHERE d.sales_order_line_id = l.id), 0) AS cost " +
+				"FROM sales_order_lines l JOIN sales_orders so ON so.id = l.sales_order_id" +
+				") x GROUP BY x.sale_day, x.product_id";
+		String sqlMonthlyExists = "SELECT EXISTS (SELECT 1 FROM sales_monthly_rollup)";
+		String sqlMonthlyBackfill = "INSERT INTO sales_monthly_rollup (month_start, slot, revenue, cost) " +
+				"SELECT CAST(date_trunc('month', sale_day) AS date), 0, SUM(revenue), SUM(cost) " +
+				"FROM sales_daily_product_rollup GROUP BY 1";
+
+		try (Connection c = dataSource.getConnection()) {
+			c.setAutoCommit(false);
+			try (Statement s = c.createStatement()) {
+				s.execute(sqlLock);
+				boolean populated;
+				try (ResultSet rs = s.executeQuery(sqlExists)) {
+					populated = rs.next() && rs.getBoolean(1);
+				}
+				if (!populated) {
+					try (PreparedStatement ps = c.prepareStatement(sqlBackfill)) {
+						ps.setString(1, reportProperties.zoneId().getId());
+						ps.executeUpdate();
+					}
+				}
+				boolean monthlyPopulated;
+				try (ResultSet rs = s.executeQuery(sqlMonthlyExists)) {
+					monthlyPopulated = rs.next() && rs.getBoolean(1);
+				}
+				if (!monthlyPopulated) {
+					s.executeUpdate(sqlMonthlyBackfill);
+				}
+				c.commit();
+			} catch (Exception e) {
+				c.rollback();
+				throw e;
+			} finally {
+				c.setAutoCommit(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.cosmetics.inventory.report;
+
+import com.cosmetics.inventory.sales.SalesDeductionEntity;
+import com.cosmetics.inventory.sales.SalesOrderEntity;
+import com.cosmetics.inventory.sales.SalesOrderLineEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+public class SalesRollupService {
+	/**
+	 * Every sale touches its month's totals, so they are spread over a few rows to keep checkouts from queueing.
+	 */
+	static final int MONTHLY_SLOTS = 8;
+
+	private final SalesDailyRollupRepository rollupRepository;
+	private final SalesMonthlyRollupRepository monthlyRollupRepository;
+	private final ReportProperties reportProperties;
+	private final ReportCache reportCache;
+
+	public SalesRollupService(SalesDailyRollupRepository rollupRepository, SalesMonthlyRollupRepository monthlyRollupRepository, ReportProperties reportProperties, ReportCache reportCache) {
+		this.rollupRepository = rollupRepository;
+		this.monthlyRollupRepository = monthlyRollupRepository;
+		this.reportProperties = reportProperties;
+		this.reportCache = reportCache;
+	}
+
+	public LocalDate saleDay(Instant soldAt) {
+		return soldAt.atZone(reportProperties.zoneId()).toLocalDate();
+	}
+
+	@Transactional
+	public void recordSale(SalesOrderEntity so) {
+		apply(so, 1);
+	}
+
+	/**
+	 * Records many sales with one rollup write per (day, product) instead of one per sale.
+	 */
+	@Transactional
+	public void recordSales(Collection<SalesOrderEntity> sales) {
+		Map<LocalDate, Map<Long, ProductTotals>> byDay = new TreeMap<>();
+		for (SalesOrderEntity so : sales) {
+			Map<Long, ProductTotals> day = byDay.computeIfAbsent(saleDay(so.getSoldAt()), d -> new TreeMap<>());
+			for (var e : totalsByProduct(so).entrySet()) {
+				day.merge(e.getKey(), e.getValue(), ProductTotals::plus);
+			}
+		}
+		byDay.forEach((day, totals) -> write(day, totals, 1));
+	}
+
+	@Transactional
+	public void reverseSale(SalesOrderEntity so) {
+		apply(so, -1);
+	}
+
+	/**
+	 * Captures what a sale currently contributes to the rollups, so that {@link #recordChange} can write only the
+	 * difference once the sale has been edited.
+	 */
+	public SaleSnapshot snapshot(SalesOrderEntity so) {
+		return new SaleSnapshot(saleDay(so.getSoldAt()), totalsByProduct(so));
+	}
+
+	@Transactional
+	public void recordChange(SaleSnapshot before, SalesOrderEntity after) {
+		LocalDate day = saleDay(after.getSoldAt());
+		Map<Long, ProductTotals> current = totalsByProduct(after);
+		if (!day.equals(before.day())) {
+			write(before.day(), before.byProduct(), -1);
+			write(day, current, 1);
+			return;
+		}
+
+		Map<Long, ProductTotals> diff = new TreeMap<>();
+		for (var e : current.entrySet()) {
+			ProductTotals old = before.byProduct().get(e.getKey());
+			ProductTotals d = e.getValue().minus(old);
+			if (!d.isZero()) diff.put(e.getKey(), d);
+		}
+		for (var e : before.byProduct().entrySet()) {
+			if (!current.containsKey(e.getKey())) diff.put(e.getKey(), new ProductTotals().minus(e.getValue()));
+		}
+		write(day, diff, 1);
+	}
+
+	private void apply(SalesOrderEntity so, int sign) {
+		if (so == null || so.getLines().isEmpty()) return;
+		write(saleDay(so.getSoldAt()), totalsByProduct(so), sign);
+	}
+
+	private static Map<Long, ProductTotals> totalsByProduct(SalesOrderEntity so) {
+		Map<Long, ProductTotals> byProduct = new TreeMap<>();
+		for (SalesOrderLineEntity line : so.getLines()) {
+			ProductTotals totals = byProduct.computeIfAbsent(line.getProduct().getId(), id -> new ProductTotals());
+			totals.quantity += line.getQuantity();
+			totals.revenue = totals.revenue.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+			for (SalesDeductionEntity d : line.getDeductions()) {
+				totals.cost = totals.cost.add(d.getBatch().getCostPrice().multiply(BigDecimal.valueOf(d.getQuantity())));
+			}
+		}
+		return byProduct;
+	}
+
+	private void write(LocalDate day, Map<Long, ProductTotals> byProduct, int sign) {
+		if (byProduct.isEmpty()) return;
+		reportCache.invalidateAfterCommit(ReportCache.salesDay(day));
+
+		BigDecimal factor = BigDecimal.valueOf(sign);
+		BigDecimal saleRevenue = BigDecimal.ZERO;
+		BigDecimal saleCost = BigDecimal.ZERO;
+		for (var e : byProduct.entrySet()) {
+			ProductTotals totals = e.getValue();
+			rollupRepository.addToDay(
+					day,
+					e.getKey(),
+					sign * totals.quantity,
+					totals.revenue.multiply(factor),
+					totals.cost.multiply(factor)
+			);
+			saleRevenue = saleRevenue.add(totals.revenue);
+			saleCost = saleCost.add(totals.cost);
+		}
+		if (saleRevenue.signum() == 0 && saleCost.signum() == 0) return;
+		monthlyRollupRepository.addToMonth(
+				day.withDayOfMonth(1),
+				ThreadLocalRandom.current().nextInt(MONTHLY_SLOTS),
+				saleRevenue.multiply(factor),
+				saleCost.multiply(factor)
+		);
+	}
+
+	public record SaleSnapshot(LocalDate day, Map<Long, ProductTotals> byProduct) {
+	}
+
+	public static final class ProductTotals {
+		private int quantity;
+		private BigDecimal revenue = BigDecimal.ZERO;
+		private BigDecimal cost = BigDecimal.ZERO;
+
+		private ProductTotals minus(ProductTotals other) {
+			ProductTotals d = new ProductTotals();
+			d.quantity = quantity;
+			d.revenue = revenue;
+			d.cost = cost;
+			if (other != null) {
+				d.quantity -= other.quantity;
+				d.revenue = d.revenue.subtract(other.revenue);
+				d.cost = d.cost.subtract(other.cost);
+			}
+			return d;
+		}
+
+		private ProductTotals plus(ProductTotals other) {
+			quantity += other.quantity;
+			revenue = revenue.add(other.revenue);
+			cost = cost.add(other.cost);
+			return this;
+		}
+
+		private boolean isZero() {
+			return quantity == 0 && revenue.signum() == 0 && cost.signum() == 0;
+		}
+	}
+}
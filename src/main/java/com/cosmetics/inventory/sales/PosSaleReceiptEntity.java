@@ -0,0 +1,95 @@
+package com.cosmetics.inventory.sales;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Remembers the outcome of every queued sale a terminal has replayed, so a replay of the same
+ * (terminal, sequence) is answered from here instead of selling twice.
+ */
+@Entity
+@Table(name = "pos_sale_receipts", uniqueConstraints = {
+		@UniqueConstraint(name = "uq_pos_sale_receipts_terminal_sequence", columnNames = {"terminal_id", "sequence"})
+})
+public class PosSaleReceiptEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "terminal_id", nullable = false, length = 120)
+	private String terminalId;
+
+	@Column(nullable = false)
+	private long sequence;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 20)
+	private PosSaleReceiptStatus status;
+
+	private Long salesOrderId;
+
+	@Column(length = 500)
+	private String error;
+
+	private Instant clientSoldAt;
+
+	@Column(nullable = false)
+	private Instant receivedAt = Instant.now();
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getTerminalId() {
+		return terminalId;
+	}
+
+	public void setTerminalId(String terminalId) {
+		this.terminalId = terminalId;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	public PosSaleReceiptStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(PosSaleReceiptStatus status) {
+		this.status = status;
+	}
+
+	public Long getSalesOrderId() {
+		return salesOrderId;
+	}
+
+	public void setSalesOrderId(Long salesOrderId) {
+		this.salesOrderId = salesOrderId;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public Instant getClientSoldAt() {
+		return clientSoldAt;
+	}
+
+	public void setClientSoldAt(Instant clientSoldAt) {
+		this.clientSoldAt = clientSoldAt;
+	}
+
+	public Instant getReceivedAt() {
+		return receivedAt;
+	}
+}
@@ -0,0 +1,10 @@
+package com.cosmetics.inventory.sales;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PosSaleReceiptRepository extends JpaRepository<PosSaleReceiptEntity, Long> {
+	List<PosSaleReceiptEntity> findByTerminalIdAndSequenceIn(String terminalId, Collection<Long> sequences);
+}
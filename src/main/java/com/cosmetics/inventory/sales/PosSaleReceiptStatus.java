@@ -0,0 +1,6 @@
+package com.cosmetics.inventory.sales;
+
+public enum PosSaleReceiptStatus {
+	APPLIED,
+	REJECTED
+}
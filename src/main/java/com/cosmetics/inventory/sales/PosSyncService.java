@@ -0,0 +1,132 @@
+package com.cosmetics.inventory.sales;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ingests the sales a point-of-sale terminal queued while it was offline. Sales are applied in sequence order
+ * through the bulk sale path; each (terminal, sequence) is applied at most once and its outcome is kept, so a
+ * terminal can safely replay its whole queue after reconnecting. If a chunk cannot be saved, the rest of the queue
+ * is left for the next replay rather than applied out of order.
+ */
+@Service
+public class PosSyncService {
+	private final SalesService salesService;
+	private final PosSaleReceiptRepository receiptRepository;
+
+	public PosSyncService(SalesService salesService, PosSaleReceiptRepository receiptRepository) {
+		this.salesService = salesService;
+		this.receiptRepository = receiptRepository;
+	}
+
+	public PosSyncReport ingest(String terminalId, List<QueuedSaleCommand> queued, Authentication authentication) {
+		if (terminalId == null || terminalId.isBlank()) {
+			throw new IllegalArgumentException("Terminal id is required");
+		}
+		String terminal = terminalId.trim();
+		if (queued == null || queued.isEmpty()) {
+			return new PosSyncReport(terminal, 0, 0, 0, 0, List.of());
+		}
+		if (queued.size() > SalesService.MAX_BULK_SALES) {
+			throw new IllegalArgumentException("At most " + SalesService.MAX_BULK_SALES + " sales can be submitted at once");
+		}
+
+		Map<Long, QueuedSaleCommand> bySequence = new LinkedHashMap<>();
+		queued.stream()
+				.sorted(Comparator.comparingLong(QueuedSaleCommand::sequence))
+				.forEach(q -> bySequence.putIfAbsent(q.sequence(), q));
+
+		Map<Long, PosSaleOutcome> outcomes = new HashMap<>();
+		for (PosSaleReceiptEntity r : receiptRepository.findByTerminalIdAndSequenceIn(terminal, bySequence.keySet())) {
+			outcomes.put(r.getSequence(), new PosSaleOutcome(r.getSequence(), PosSaleOutcomeStatus.DUPLICATE, r.getSalesOrderId(), r.getError(), List.of()));
+		}
+
+		List<QueuedSaleCommand> fresh = new ArrayList<>();
+		List<SalesService.TimedSale> sales = new ArrayList<>();
+		for (QueuedSaleCommand q : bySequence.values()) {
+			if (outcomes.containsKey(q.sequence())) continue;
+			fresh.add(q);
+			sales.add(new SalesService.TimedSale(q.sale(), q.clientSoldAt()));
+		}
+
+		Set<Integer> recorded = new HashSet<>();
+		List<SalesService.BulkSaleResult> results = salesService.createSales(sales, authentication, true, chunk -> {
+			List<PosSaleReceiptEntity> receipts = new ArrayList<>(chunk.size());
+			for (SalesService.BulkSaleResult result : chunk) {
+				QueuedSaleCommand q = fresh.get(result.index());
+				PosSaleReceiptEntity r = new PosSaleReceiptEntity();
+				r.setTerminalId(terminal);
+				r.setSequence(q.sequence());
+				r.setClientSoldAt(q.clientSoldAt());
+				r.setStatus(result.success() ? PosSaleReceiptStatus.APPLIED : PosSaleReceiptStatus.REJECTED);
+				r.setSalesOrderId(result.saleId());
+				r.setError(truncate(result.error()));
+				receipts.add(r);
+			}
+			receiptRepository.saveAll(receipts);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					chunk.forEach(result -> recorded.add(result.index()));
+				}
+			});
+		});
+
+		for (SalesService.BulkSaleResult result : results) {
+			QueuedSaleCommand q = fresh.get(result.index());
+			PosSaleOutcomeStatus status = !recorded.contains(result.index()) ? PosSaleOutcomeStatus.FAILED
+					: result.success() ? PosSaleOutcomeStatus.APPLIED
+					: PosSaleOutcomeStatus.REJECTED;
+			outcomes.put(q.sequence(), new PosSaleOutcome(q.sequence(), status, result.saleId(), result.error(), result.conflicts()));
+		}
+
+		int applied = 0, rejected = 0, duplicates = 0, failed = 0;
+		List<PosSaleOutcome> ordered = new ArrayList<>(bySequence.size());
+		for (Long sequence : bySequence.keySet()) {
+			PosSaleOutcome o = outcomes.get(sequence);
+			switch (o.status()) {
+				case APPLIED -> applied++;
+				case REJECTED -> rejected++;
+				case DUPLICATE -> duplicates++;
+				case FAILED -> failed++;
+			}
+			ordered.add(o);
+		}
+		return new PosSyncReport(terminal, applied, rejected, duplicates, failed, ordered);
+	}
+
+	private static String truncate(String error) {
+		return error != null && error.length() > 500 ? error.substring(0, 500) : error;
+	}
+
+	public record QueuedSaleCommand(long sequence, Instant clientSoldAt, SalesService.CreateSaleCommand sale) {
+	}
+
+	/**
+	 * {@code FAILED} sales were not recorded and can be replayed; {@code REJECTED} ones are final.
+	 */
+	public enum PosSaleOutcomeStatus {
+		APPLIED,
+		REJECTED,
+		DUPLICATE,
+		FAILED
+	}
+
+	public record PosSaleOutcome(long sequence, PosSaleOutcomeStatus status, Long saleId, String error, List<SalesService.LineConflict> conflicts) {
+	}
+
+	public record PosSyncReport(String terminalId, int applied, int rejected, int duplicates, int failed, List<PosSaleOutcome> outcomes) {
+	}
+}
@@ -0,0 +1,22 @@
+package com.cosmetics.inventory.sales;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "receipt_counters")
+public class ReceiptCounterEntity {
+	@Id
+	@Column(length = 120)
+	private String branch;
+
+	@Column(name = "last_value", nullable = false)
+	private long lastValue;
+
+	public String getBranch() {
+		return branch;
+	}
+
+	public long getLastValue() {
+		return lastValue;
+	}
+}
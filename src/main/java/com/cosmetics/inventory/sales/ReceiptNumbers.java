@@ -0,0 +1,47 @@
+package com.cosmetics.inventory.sales;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out receipt numbers per branch, formatted as {@code BRANCH-000123}. Numbers are taken with a single-row
+ * upsert in the caller's transaction, so a rolled back sale gives its numbers back. The branch's counter row stays
+ * locked until that transaction ends, which is why callers take numbers as their last step.
+ */
+@Component
+public class ReceiptNumbers {
+	private final JdbcTemplate jdbcTemplate;
+
+	public ReceiptNumbers(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public String next(String branch) {
+		return next(branch, 1).get(0);
+	}
+
+	@Transactional(propagation = Propagation.MANDATORY)
+	public List<String> next(String branch, int count) {
+		Long last = jdbcTemplate.queryForObject(
+				"insert into receipt_counters (branch, last_value) values (?, ?) " +
+						"on conflict (branch) do update set last_value = receipt_counters.last_value + excluded.last_value " +
+						"returning last_value",
+				Long.class, branch, count);
+		List<String> numbers = new ArrayList<>(count);
+		for (long n = last - count + 1; n <= last; n++) {
+			numbers.add(format(branch, n));
+		}
+		return numbers;
+	}
+
+	static String format(String branch, long number) {
+		return branch + "-" + String.format("%06d", number);
+	}
+}
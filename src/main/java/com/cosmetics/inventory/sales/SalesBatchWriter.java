@@ -0,0 +1,73 @@
+package com.cosmetics.inventory.sales;
+
+import com.cosmetics.inventory.stockmovement.StockMovementEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts already-allocated sales with JDBC batches. Ids are generated by the database, so Hibernate cannot batch
+ * these inserts itself; the ids are reserved from the sequences up front so lines and deductions can reference
+ * their parents within the same batch.
+ */
+@Component
+class SalesBatchWriter {
+	private final JdbcTemplate jdbcTemplate;
+
+	SalesBatchWriter(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Writes the orders with their lines and deductions, plus the movements, and returns the order ids in the
+	 * order of {@code orders}.
+	 */
+	List<Long> insert(List<SalesOrderEntity> orders, List<StockMovementEntity> movements) {
+		if (orders.isEmpty()) return List.of();
+		int lineCount = 0;
+		for (SalesOrderEntity so : orders) {
+			lineCount += so.getLines().size();
+		}
+		List<Long> orderIds = reserveIds("sales_orders", orders.size());
+		List<Long> lineIds = reserveIds("sales_order_lines", lineCount);
+
+		List<Object[]> orderRows = new ArrayList<>(orders.size());
+		List<Object[]> lineRows = new ArrayList<>(lineCount);
+		List<Object[]> deductionRows = new ArrayList<>();
+		int line = 0;
+		for (int i = 0; i < orders.size(); i++) {
+			SalesOrderEntity so = orders.get(i);
+			Long orderId = orderIds.get(i);
+			orderRows.add(new Object[]{orderId, so.getCustomer(), so.getReferenceNumber(), so.getReceiptNumber(), Timestamp.from(so.getSoldAt()), so.getSoldBy()});
+			for (SalesOrderLineEntity sol : so.getLines()) {
+				Long lineId = lineIds.get(line++);
+				lineRows.add(new Object[]{lineId, orderId, sol.getProduct().getId(), sol.getQuantity(), sol.getLocation(), sol.getUnitPrice()});
+				for (SalesDeductionEntity d : sol.getDeductions()) {
+					deductionRows.add(new Object[]{lineId, d.getBatch().getId(), d.getQuantity()});
+				}
+			}
+		}
+
+		List<Object[]> movementRows = new ArrayList<>(movements.size());
+		for (StockMovementEntity mv : movements) {
+			movementRows.add(new Object[]{mv.getType().name(), mv.getBatch().getId(), mv.getQuantity(), Timestamp.from(mv.getCreatedAt()), mv.getCreatedBy(), mv.getNote()});
+		}
+
+		jdbcTemplate.batchUpdate("insert into sales_orders (id, customer, reference_number, receipt_number, sold_at, sold_by) values (?, ?, ?, ?, ?, ?)", orderRows);
+		jdbcTemplate.batchUpdate("insert into sales_order_lines (id, sales_order_id, product_id, quantity, location, unit_price) values (?, ?, ?, ?, ?, ?)", lineRows);
+		jdbcTemplate.batchUpdate("insert into sales_deductions (sales_order_line_id, batch_id, quantity) values (?, ?, ?)", deductionRows);
+		jdbcTemplate.batchUpdate("insert into stock_movements (type, batch_id, quantity, created_at, created_by, note) values (?, ?, ?, ?, ?, ?)", movementRows);
+		return orderIds;
+	}
+
+	private List<Long> reserveIds(String table, int count) {
+		if (count == 0) return List.of();
+		return jdbcTemplate.queryForList(
+				"select nextval(pg_get_serial_sequence(?, 'id')) from generate_series(1, ?)",
+				Long.class, table, count);
+	}
+}
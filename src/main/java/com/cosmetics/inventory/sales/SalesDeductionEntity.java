@@ -4,7 +4,9 @@ import com.cosmetics.inventory.product.ProductBatchEntity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "sales_deductions")
+@Table(name = "sales_deductions", indexes = {
+		@Index(name = "idx_sales_deductions_sales_order_line", columnList = "sales_order_line_id")
+})
 public class SalesDeductionEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,7 +1,15 @@
 package com.cosmetics.inventory.sales;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface SalesDeductionRepository extends JpaRepository<SalesDeductionEntity, Long> {
 	boolean existsByBatchId(Long batchId);
+
+	@Query("select distinct d.batch.id from SalesDeductionEntity d where d.batch.id in :batchIds")
+	List<Long> findSoldBatchIds(@Param("batchIds") Collection<Long> batchIds);
 }
@@ -7,7 +7,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "sales_orders")
+@Table(name = "sales_orders", uniqueConstraints = {
+		@UniqueConstraint(name = "uq_sales_orders_receipt_number", columnNames = {"receipt_number"})
+}, indexes = {
+		@Index(name = "idx_sales_orders_sold_at", columnList = "sold_at, id"),
+		@Index(name = "idx_sales_orders_sold_by_sold_at", columnList = "sold_by, sold_at, id"),
+		@Index(name = "idx_sales_orders_customer_sold_at", columnList = "customer, sold_at, id"),
+		@Index(name = "idx_sales_orders_reference_number", columnList = "reference_number")
+})
 public class SalesOrderEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,6 +26,9 @@ public class SalesOrderEntity {
 	@Column(length = 120)
 	private String referenceNumber;
 
+	@Column(name = "receipt_number", length = 140)
+	private String receiptNumber;
+
 	@Column(nullable = false)
 	private Instant soldAt = Instant.now();
 
@@ -48,10 +58,22 @@ public class SalesOrderEntity {
 		this.referenceNumber = referenceNumber;
 	}
 
+	public String getReceiptNumber() {
+		return receiptNumber;
+	}
+
+	public void setReceiptNumber(String receiptNumber) {
+		this.receiptNumber = receiptNumber;
+	}
+
 	public Instant getSoldAt() {
 		return soldAt;
 	}
 
+	public void setSoldAt(Instant soldAt) {
+		this.soldAt = soldAt;
+	}
+
 	public String getSoldBy() {
 		return soldBy;
 	}
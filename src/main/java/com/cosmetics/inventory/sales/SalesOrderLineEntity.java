@@ -8,7 +8,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "sales_order_lines")
+@Table(name = "sales_order_lines", indexes = {
+		@Index(name = "idx_sales_order_lines_sales_order", columnList = "sales_order_id")
+})
 public class SalesOrderLineEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
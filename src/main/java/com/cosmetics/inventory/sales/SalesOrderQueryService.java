@@ -0,0 +1,136 @@
+package com.cosmetics.inventory.sales;
+
+import com.cosmetics.inventory.paging.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class SalesOrderQueryService {
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int MAX_PAGE_SIZE = 200;
+
+	private final EntityManager entityManager;
+
+	public SalesOrderQueryService(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * Pages orders newest first. The page's ids come from the (sold_at, id) index alone; lines and deductions are
+	 * then fetched for just those ids.
+	 */
+	@Transactional(readOnly = true)
+	public SalesOrderPage findPage(SalesOrderCriteria criteria, Integer first, String after) {
+		int limit = first == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(first, MAX_PAGE_SIZE));
+		List<Object[]> keys = buildQuery(criteria, KeysetCursor.decode(after))
+				.setMaxResults(limit + 1)
+				.getResultList();
+
+		boolean hasMore = keys.size() > limit;
+		List<Object[]> pageKeys = hasMore ? keys.subList(0, limit) : keys;
+		if (pageKeys.isEmpty()) {
+			return new SalesOrderPage(List.of(), null, false);
+		}
+		List<Long> ids = new ArrayList<>(pageKeys.size());
+		for (Object[] k : pageKeys) {
+			ids.add((Long) k[0]);
+		}
+
+		List<SalesOrderEntity> items = loadWithLines(ids);
+		Object[] last = pageKeys.get(pageKeys.size() - 1);
+		String nextCursor = hasMore ? new KeysetCursor((Instant) last[1], (Long) last[0]).encode() : null;
+		return new SalesOrderPage(items, nextCursor, hasMore);
+	}
+
+	/**
+	 * Finds a sale by its receipt number, or else the latest one with that reference number.
+	 */
+	@Transactional(readOnly = true)
+	public SalesOrderEntity findByReference(String reference) {
+		if (reference == null || reference.isBlank()) {
+			throw new IllegalArgumentException("Reference is required");
+		}
+		String ref = reference.trim();
+		List<Long> ids = entityManager.createQuery(
+						"select o.id from SalesOrderEntity o where o.receiptNumber = :ref", Long.class)
+				.setParameter("ref", ref)
+				.getResultList();
+		if (ids.isEmpty()) {
+			ids = entityManager.createQuery(
+							"select o.id from SalesOrderEntity o where o.referenceNumber = :ref order by o.soldAt desc, o.id desc", Long.class)
+					.setParameter("ref", ref)
+					.setMaxResults(1)
+					.getResultList();
+		}
+		return ids.isEmpty() ? null : loadWithLines(ids).get(0);
+	}
+
+	/**
+	 * Loads orders with their lines and products, then their lines' deductions and batches: two queries whatever
+	 * the number of orders. Lines and deductions are both lists, which Hibernate cannot fetch in a single join.
+	 */
+	private List<SalesOrderEntity> loadWithLines(List<Long> ids) {
+		Map<Long, SalesOrderEntity> byId = new HashMap<>();
+		for (SalesOrderEntity so : entityManager.createQuery(
+						"select distinct o from SalesOrderEntity o left join fetch o.lines l left join fetch l.product " +
+								"where o.id in :ids", SalesOrderEntity.class)
+				.setParameter("ids", ids)
+				.getResultList()) {
+			byId.put(so.getId(), so);
+		}
+		entityManager.createQuery(
+						"select distinct l from SalesOrderLineEntity l left join fetch l.deductions d left join fetch d.batch " +
+								"where l.salesOrder.id in :ids", SalesOrderLineEntity.class)
+				.setParameter("ids", ids)
+				.getResultList();
+
+		List<SalesOrderEntity> items = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			items.add(byId.get(id));
+		}
+		return items;
+	}
+
+	private TypedQuery<Object[]> buildQuery(SalesOrderCriteria c, KeysetCursor cursor) {
+		StringBuilder jpql = new StringBuilder("select o.id, o.soldAt from SalesOrderEntity o where 1 = 1");
+		if (c.from() != null) jpql.append(" and o.soldAt >= :from");
+		if (c.to() != null) jpql.append(" and o.soldAt <= :to");
+		if (c.soldBy() != null) jpql.append(" and o.soldBy = :soldBy");
+		if (c.customer() != null) jpql.append(" and o.customer = :customer");
+		if (c.referenceNumber() != null) jpql.append(" and o.referenceNumber = :referenceNumber");
+		if (cursor != null) {
+			jpql.append(" and (o.soldAt < :cursorAt or (o.soldAt = :cursorAt and o.id < :cursorId))");
+		}
+		jpql.append(" order by o.soldAt desc, o.id desc");
+
+		TypedQuery<Object[]> q = entityManager.createQuery(jpql.toString(), Object[].class);
+		if (c.from() != null) q.setParameter("from", c.from());
+		if (c.to() != null) q.setParameter("to", c.to());
+		if (c.soldBy() != null) q.setParameter("soldBy", c.soldBy());
+		if (c.customer() != null) q.setParameter("customer", c.customer());
+		if (c.referenceNumber() != null) q.setParameter("referenceNumber", c.referenceNumber());
+		if (cursor != null) {
+			q.setParameter("cursorAt", cursor.at());
+			q.setParameter("cursorId", cursor.id());
+		}
+		return q;
+	}
+
+	/**
+	 * {@code soldBy}, {@code customer} and {@code referenceNumber} are equality filters; the first two have indexes
+	 * ending in (sold_at, id), so filtering by seller or customer pages without a sort.
+	 */
+	public record SalesOrderCriteria(Instant from, Instant to, String soldBy, String customer, String referenceNumber) {
+	}
+
+	public record SalesOrderPage(List<SalesOrderEntity> items, String nextCursor, boolean hasMore) {
+	}
+}
@@ -1,10 +1,22 @@
 package com.cosmetics.inventory.sales;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface SalesOrderRepository extends JpaRepository<SalesOrderEntity, Long> {
 	List<SalesOrderEntity> findBySoldAtGreaterThanEqualAndSoldAtLessThan(Instant fromInclusive, Instant toExclusive);
+
+	/**
+	 * Loads an order for a change of its lines, holding its row so concurrent edits and returns apply one by one.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select o from SalesOrderEntity o where o.id = :id")
+	Optional<SalesOrderEntity> lockById(@Param("id") long id);
 }
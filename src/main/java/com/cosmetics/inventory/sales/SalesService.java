@@ -1,42 +1,88 @@
 package com.cosmetics.inventory.sales;
 
+import com.cosmetics.inventory.inventory.FefoAllocationIndex;
 import com.cosmetics.inventory.inventory.InventoryItemEntity;
 import com.cosmetics.inventory.inventory.InventoryRepository;
+import com.cosmetics.inventory.inventory.InventoryStockService;
+import com.cosmetics.inventory.inventory.StockReservations;
+import com.cosmetics.inventory.inventory.StockWriteRetry;
 import com.cosmetics.inventory.product.ProductBatchEntity;
 import com.cosmetics.inventory.product.ProductBatchRepository;
 import com.cosmetics.inventory.product.ProductEntity;
 import com.cosmetics.inventory.product.ProductRepository;
+import com.cosmetics.inventory.report.SalesRollupService;
 import com.cosmetics.inventory.stockmovement.StockMovementEntity;
 import com.cosmetics.inventory.stockmovement.StockMovementRepository;
 import com.cosmetics.inventory.stockmovement.StockMovementType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 public class SalesService {
+	public static final int MAX_BULK_SALES = 2000;
+	static final int BULK_CHUNK_SIZE = 100;
+
 	private final SalesOrderRepository salesOrderRepository;
 	private final ProductRepository productRepository;
 	private final ProductBatchRepository batchRepository;
 	private final InventoryRepository inventoryRepository;
 	private final StockMovementRepository stockMovementRepository;
+	private final InventoryStockService inventoryStockService;
+	private final SalesRollupService salesRollupService;
+	private final FefoAllocationIndex fefoAllocationIndex;
+	private final StockWriteRetry stockWriteRetry;
+	private final SalesBatchWriter salesBatchWriter;
+	private final StockReservations stockReservations;
+	private final ReceiptNumbers receiptNumbers;
 
 	public SalesService(
 			SalesOrderRepository salesOrderRepository,
 			ProductRepository productRepository,
 			ProductBatchRepository batchRepository,
 			InventoryRepository inventoryRepository,
-			StockMovementRepository stockMovementRepository
+			StockMovementRepository stockMovementRepository,
+			InventoryStockService inventoryStockService,
+			SalesRollupService salesRollupService,
+			FefoAllocationIndex fefoAllocationIndex,
+			StockWriteRetry stockWriteRetry,
+			SalesBatchWriter salesBatchWriter,
+			StockReservations stockReservations,
+			ReceiptNumbers receiptNumbers
 	) {
 		this.salesOrderRepository = salesOrderRepository;
 		this.productRepository = productRepository;
 		this.batchRepository = batchRepository;
 		this.inventoryRepository = inventoryRepository;
 		this.stockMovementRepository = stockMovementRepository;
+		this.inventoryStockService = inventoryStockService;
+		this.salesRollupService = salesRollupService;
+		this.fefoAllocationIndex = fefoAllocationIndex;
+		this.stockWriteRetry = stockWriteRetry;
+		this.salesBatchWriter = salesBatchWriter;
+		this.stockReservations = stockReservations;
+		this.receiptNumbers = receiptNumbers;
 	}
 
 	@Transactional
@@ -45,34 +91,362 @@ public class SalesService {
 		so.setCustomer(cmd.customer());
 		so.setReferenceNumber(cmd.referenceNumber());
 		so.setSoldBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
-		applySaleLines(so, cmd.lines(), cmd.referenceNumber(), authentication);
-		return salesOrderRepository.save(so);
+		applySaleLines(so, cmd.lines(), cmd.referenceNumber(), cmd.cartId(), authentication);
+		so.setReceiptNumber(receiptNumbers.next(branchOf(so)));
+		SalesOrderEntity saved = salesOrderRepository.save(so);
+		salesRollupService.recordSale(saved);
+		releaseCartAfterCommit(cmd.cartId());
+		return saved;
 	}
 
+	/**
+	 * Applies only what changed: lines whose (product, location) quantities are unchanged are kept as they are,
+	 * reduced quantities are returned from the latest-expiring batches, and increases are allocated FEFO.
+	 */
 	@Transactional
 	public SalesOrderEntity updateSale(UpdateSaleCommand cmd, Authentication authentication) {
 		if (cmd == null || cmd.id() <= 0) {
 			throw new IllegalArgumentException("Sale id is required");
 		}
-		SalesOrderEntity so = salesOrderRepository.findById(cmd.id()).orElseThrow();
-		restoreInventoryForSale(so, authentication);
+		SalesOrderEntity so = salesOrderRepository.lockById(cmd.id()).orElseThrow();
+		var before = salesRollupService.snapshot(so);
 
 		so.setCustomer(cmd.customer());
 		so.setReferenceNumber(cmd.referenceNumber());
 
-		so.getLines().clear();
-		applySaleLines(so, cmd.lines(), cmd.referenceNumber(), authentication);
-		return salesOrderRepository.save(so);
+		List<CreateSaleLineCommand> saleLines = validLines(cmd.lines());
+		Map<Long, ProductEntity> products = loadProducts(saleLines);
+
+		Map<StockKey, List<SalesOrderLineEntity>> oldByKey = new LinkedHashMap<>();
+		for (SalesOrderLineEntity line : so.getLines()) {
+			oldByKey.computeIfAbsent(new StockKey(line.getProduct().getId(), locationOf(line.getLocation())), k -> new ArrayList<>()).add(line);
+		}
+		Map<StockKey, List<CreateSaleLineCommand>> newByKey = new LinkedHashMap<>();
+		for (CreateSaleLineCommand line : saleLines) {
+			newByKey.computeIfAbsent(keyOf(line), k -> new ArrayList<>()).add(line);
+		}
+
+		Map<StockKey, List<Take>> pools = new LinkedHashMap<>();
+		Map<StockKey, Integer> shortfalls = new LinkedHashMap<>();
+		Set<StockKey> keys = new LinkedHashSet<>(oldByKey.keySet());
+		keys.addAll(newByKey.keySet());
+		for (StockKey key : keys) {
+			List<SalesOrderLineEntity> oldLines = oldByKey.getOrDefault(key, List.of());
+			List<CreateSaleLineCommand> newLines = newByKey.getOrDefault(key, List.of());
+			if (sameQuantities(oldLines, newLines)) {
+				for (int i = 0; i < oldLines.size(); i++) {
+					oldLines.get(i).setUnitPrice(BigDecimal.valueOf(newLines.get(i).unitPrice()));
+				}
+				continue;
+			}
+
+			List<Take> pool = poolOf(oldLines);
+			int oldQty = oldLines.stream().mapToInt(SalesOrderLineEntity::getQuantity).sum();
+			int newQty = newLines.stream().mapToInt(CreateSaleLineCommand::quantity).sum();
+			if (newQty < oldQty) {
+				release(pool, key.location(), oldQty - newQty, cmd.referenceNumber(), authentication);
+			} else if (newQty > oldQty) {
+				shortfalls.put(key, newQty - oldQty);
+			}
+			pools.put(key, pool);
+			so.getLines().removeAll(oldLines);
+		}
+
+		for (var e : allocate(shortfalls, products, cmd.referenceNumber(), null, authentication).entrySet()) {
+			List<Take> pool = pools.get(e.getKey());
+			pool.addAll(e.getValue());
+			pool.sort(FEFO);
+		}
+		for (var e : pools.entrySet()) {
+			Deque<Take> pool = new ArrayDeque<>(e.getValue());
+			for (CreateSaleLineCommand line : newByKey.getOrDefault(e.getKey(), List.of())) {
+				SalesOrderLineEntity sol = newLine(line, products.get(line.productId()));
+				assignDeductions(sol, pool);
+				so.addLine(sol);
+			}
+		}
+
+		SalesOrderEntity saved = salesOrderRepository.save(so);
+		salesRollupService.recordChange(before, saved);
+		return saved;
 	}
 
     @Transactional
     public boolean deleteSale(long id, Authentication authentication) {
-        SalesOrderEntity so = salesOrderRepository.findById(id).orElseThrow();
+        SalesOrderEntity so = salesOrderRepository.lockById(id).orElseThrow();
+        salesRollupService.reverseSale(so);
         restoreInventoryForSale(so, authentication);
         salesOrderRepository.delete(so);
         return true;
     }
 
+    /**
+     * Creates many sales, committing them in chunks. Each chunk loads its products and locks its stock once, and
+     * its rows are written with JDBC batches. A sale that cannot be created is reported and skipped; the rest
+     * of its chunk still goes through.
+     */
+    public List<BulkSaleResult> createSales(List<CreateSaleCommand> cmds, Authentication authentication) {
+        if (cmds == null || cmds.isEmpty()) return List.of();
+        List<TimedSale> sales = new ArrayList<>(cmds.size());
+        for (CreateSaleCommand cmd : cmds) {
+            sales.add(new TimedSale(cmd, null));
+        }
+        return createSales(sales, authentication, false, results -> {
+        });
+    }
+
+    /**
+     * Same as {@link #createSales(List, Authentication)}, applying the sales strictly in list order. Sales with a
+     * {@code soldAt} keep it when it is not in the future. {@code onChunk} runs inside each chunk's transaction
+     * with that chunk's results, so callers can record them atomically with the sales. With
+     * {@code stopOnFailure}, a chunk that cannot be saved ends the run and every later sale is reported as not
+     * applied, so no sale is applied ahead of one queued before it.
+     */
+    public List<BulkSaleResult> createSales(List<TimedSale> sales, Authentication authentication, boolean stopOnFailure,
+                                            Consumer<List<BulkSaleResult>> onChunk) {
+        if (sales == null || sales.isEmpty()) return List.of();
+        if (sales.size() > MAX_BULK_SALES) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_SALES + " sales can be submitted at once");
+        }
+        List<BulkSaleResult> results = new ArrayList<>(sales.size());
+        for (int from = 0; from < sales.size(); from += BULK_CHUNK_SIZE) {
+            int offset = from;
+            List<TimedSale> chunk = sales.subList(from, Math.min(from + BULK_CHUNK_SIZE, sales.size()));
+            try {
+                results.addAll(stockWriteRetry.execute(() -> {
+                    List<BulkSaleResult> chunkResults = createSaleChunk(chunk, offset, authentication);
+                    onChunk.accept(chunkResults);
+                    return chunkResults;
+                }));
+            } catch (RuntimeException e) {
+                String error = chunkFailure(e);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(BulkSaleResult.failed(offset + i, chunk.get(i).sale(), error, List.of()));
+                }
+                if (stopOnFailure) {
+                    for (int i = offset + chunk.size(); i < sales.size(); i++) {
+                        results.add(BulkSaleResult.failed(i, sales.get(i).sale(), "Not applied: an earlier sale could not be saved", List.of()));
+                    }
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<BulkSaleResult> createSaleChunk(List<TimedSale> chunk, int offset, Authentication authentication) {
+        BulkSaleResult[] results = new BulkSaleResult[chunk.size()];
+        List<List<CreateSaleLineCommand>> lines = new ArrayList<>(chunk.size());
+        Set<Long> productIds = new HashSet<>();
+        Set<String> locations = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            CreateSaleCommand cmd = chunk.get(i).sale();
+            try {
+                List<CreateSaleLineCommand> saleLines = validLines(cmd == null ? null : cmd.lines());
+                for (CreateSaleLineCommand line : saleLines) {
+                    productIds.add(line.productId());
+                    locations.add(locationOf(line.location()));
+                }
+                lines.add(saleLines);
+            } catch (IllegalArgumentException e) {
+                results[i] = BulkSaleResult.failed(offset + i, cmd, e.getMessage(), List.of());
+                lines.add(null);
+            }
+        }
+
+        Map<Long, ProductEntity> products = new HashMap<>();
+        for (ProductEntity p : productRepository.findAllById(productIds)) {
+            products.put(p.getId(), p);
+        }
+        Map<StockKey, List<InventoryItemEntity>> stock = new HashMap<>();
+        Map<InventoryItemEntity, Integer> available = new IdentityHashMap<>();
+        if (!productIds.isEmpty()) {
+            for (InventoryItemEntity inv : inventoryRepository.lockSellable(productIds, locations, LocalDate.now())) {
+                stock.computeIfAbsent(new StockKey(inv.getBatch().getProduct().getId(), inv.getLocation()), k -> new ArrayList<>()).add(inv);
+                available.put(inv, inv.getQtyOnHand());
+            }
+        }
+
+        String soldBy = authentication != null ? String.valueOf(authentication.getPrincipal()) : null;
+        Instant now = Instant.now();
+        List<Integer> accepted = new ArrayList<>();
+        List<SalesOrderEntity> orders = new ArrayList<>();
+        List<StockMovementEntity> movements = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] != null) continue;
+            CreateSaleCommand cmd = chunk.get(i).sale();
+            Instant soldAt = chunk.get(i).soldAt();
+            String error = null;
+            List<LineConflict> conflicts = new ArrayList<>();
+            Map<InventoryItemEntity, Integer> used = new IdentityHashMap<>();
+            SalesOrderEntity so = new SalesOrderEntity();
+            so.setCustomer(cmd.customer());
+            so.setReferenceNumber(cmd.referenceNumber());
+            so.setSoldBy(soldBy);
+            so.setSoldAt(soldAt != null && soldAt.isBefore(now) ? soldAt : now);
+            for (CreateSaleLineCommand line : lines.get(i)) {
+                ProductEntity product = products.get(line.productId());
+                if (product == null) {
+                    error = "Product not found: " + line.productId();
+                    break;
+                }
+                SalesOrderLineEntity sol = newLine(line, product);
+                List<InventoryItemEntity> rows = stock.getOrDefault(keyOf(line), List.of());
+                int free = -stockReservations.reservedByOthers(line.productId(), sol.getLocation(), cmd.cartId());
+                for (InventoryItemEntity inv : rows) {
+                    free += Math.max(available.get(inv) - used.getOrDefault(inv, 0), 0);
+                }
+                int remaining = free >= line.quantity() ? line.quantity() : 0;
+                for (InventoryItemEntity inv : rows) {
+                    int rowFree = available.get(inv) - used.getOrDefault(inv, 0);
+                    if (remaining <= 0) break;
+                    if (rowFree <= 0) continue;
+                    int take = Math.min(rowFree, remaining);
+                    used.merge(inv, take, Integer::sum);
+                    SalesDeductionEntity d = new SalesDeductionEntity();
+                    d.setBatch(inv.getBatch());
+                    d.setQuantity(take);
+                    sol.addDeduction(d);
+                    remaining -= take;
+                }
+                if (free < line.quantity()) {
+                    conflicts.add(new LineConflict(product.getId(), product.getSku(), sol.getLocation(), line.quantity(), Math.max(free, 0)));
+                }
+                so.addLine(sol);
+            }
+            if (error == null && !conflicts.isEmpty()) {
+                LineConflict first = conflicts.get(0);
+                error = "Insufficient non-expired stock for product " + first.sku() + " at location " + first.location();
+            }
+            if (error != null) {
+                results[i] = BulkSaleResult.failed(offset + i, cmd, error, conflicts);
+                continue;
+            }
+
+            for (var e : used.entrySet()) {
+                available.merge(e.getKey(), -e.getValue(), Integer::sum);
+                StockMovementEntity mv = new StockMovementEntity();
+                mv.setType(StockMovementType.OUT);
+                mv.setBatch(e.getKey().getBatch());
+                mv.setQuantity(e.getValue());
+                mv.setCreatedBy(soldBy);
+                mv.setNote(cmd.referenceNumber() != null ? ("Sale ref: " + cmd.referenceNumber()) : "Sale");
+                movements.add(mv);
+            }
+            accepted.add(i);
+            orders.add(so);
+            releaseCartAfterCommit(cmd.cartId());
+        }
+
+        for (var e : available.entrySet()) {
+            int sold = e.getKey().getQtyOnHand() - e.getValue();
+            if (sold > 0) {
+                inventoryStockService.change(e.getKey(), -sold);
+            }
+        }
+        // Counter rows are locked until commit; taking them in branch order keeps concurrent chunks from deadlocking.
+        Map<String, List<SalesOrderEntity>> byBranch = new TreeMap<>();
+        for (SalesOrderEntity so : orders) {
+            byBranch.computeIfAbsent(branchOf(so), b -> new ArrayList<>()).add(so);
+        }
+        for (var e : byBranch.entrySet()) {
+            List<String> numbers = receiptNumbers.next(e.getKey(), e.getValue().size());
+            for (int k = 0; k < numbers.size(); k++) {
+                e.getValue().get(k).setReceiptNumber(numbers.get(k));
+            }
+        }
+        List<Long> ids = salesBatchWriter.insert(orders, movements);
+        salesRollupService.recordSales(orders);
+
+        for (int k = 0; k < accepted.size(); k++) {
+            int i = accepted.get(k);
+            results[i] = new BulkSaleResult(offset + i, chunk.get(i).sale().referenceNumber(), ids.get(k), null, List.of());
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Returns part of a sale: each listed line gives back {@code quantity} to the batches recorded in its
+     * deductions, latest-expiring first. Lines returned in full are removed; the rest of the order is untouched.
+     */
+    @Transactional
+    public SalesOrderEntity returnSaleItems(ReturnSaleItemsCommand cmd, Authentication authentication) {
+        if (cmd == null || cmd.lines() == null || cmd.lines().isEmpty()) {
+            throw new IllegalArgumentException("At least one line is required");
+        }
+        SalesOrderEntity so = salesOrderRepository.lockById(cmd.saleId()).orElseThrow();
+
+        Map<Long, SalesOrderLineEntity> linesById = new HashMap<>();
+        for (SalesOrderLineEntity line : so.getLines()) {
+            linesById.put(line.getId(), line);
+        }
+        Map<SalesOrderLineEntity, Integer> returns = new LinkedHashMap<>();
+        for (ReturnSaleLineCommand r : cmd.lines()) {
+            if (r == null) continue;
+            if (r.quantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be > 0");
+            }
+            SalesOrderLineEntity line = linesById.get(r.lineId());
+            if (line == null) {
+                throw new NoSuchElementException("Sale line not found: " + r.lineId());
+            }
+            int total = returns.merge(line, r.quantity(), Integer::sum);
+            if (total > line.getQuantity()) {
+                throw new IllegalArgumentException("Cannot return more than " + line.getQuantity() + " of sale line " + line.getId());
+            }
+        }
+
+        int remainingItems = 0;
+        for (SalesOrderLineEntity line : so.getLines()) {
+            remainingItems += line.getQuantity() - returns.getOrDefault(line, 0);
+        }
+        if (remainingItems == 0) {
+            throw new IllegalArgumentException("Returning every item would leave the sale empty; delete the sale instead");
+        }
+
+        var before = salesRollupService.snapshot(so);
+        Map<ProductBatchEntity, Integer> returnedByBatch = new LinkedHashMap<>();
+        for (var e : returns.entrySet()) {
+            SalesOrderLineEntity line = e.getKey();
+            String location = locationOf(line.getLocation());
+            List<SalesDeductionEntity> deductions = new ArrayList<>(line.getDeductions());
+            deductions.sort(Comparator.comparing(SalesDeductionEntity::getBatch, BATCH_FEFO));
+            int remaining = e.getValue();
+            for (int i = deductions.size() - 1; i >= 0 && remaining > 0; i--) {
+                SalesDeductionEntity d = deductions.get(i);
+                int back = Math.min(d.getQuantity(), remaining);
+                if (back <= 0) continue;
+                inventoryStockService.addStock(d.getBatch(), location, back);
+                returnedByBatch.merge(d.getBatch(), back, Integer::sum);
+                if (back == d.getQuantity()) {
+                    line.getDeductions().remove(d);
+                } else {
+                    d.setQuantity(d.getQuantity() - back);
+                }
+                remaining -= back;
+            }
+            if (e.getValue() == line.getQuantity()) {
+                so.getLines().remove(line);
+            } else {
+                line.setQuantity(line.getQuantity() - e.getValue());
+            }
+        }
+
+        for (var e : returnedByBatch.entrySet()) {
+            StockMovementEntity mv = new StockMovementEntity();
+            mv.setType(StockMovementType.RETURN);
+            mv.setBatch(e.getKey());
+            mv.setQuantity(e.getValue());
+            mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
+            mv.setNote(so.getReferenceNumber() != null ? ("Sale return ref: " + so.getReferenceNumber()) : "Sale return");
+            stockMovementRepository.save(mv);
+        }
+
+        SalesOrderEntity saved = salesOrderRepository.save(so);
+        salesRollupService.recordChange(before, saved);
+        return saved;
+    }
+
     private void restoreInventoryForSale(SalesOrderEntity so, Authentication authentication) {
         if (so == null) return;
         for (SalesOrderLineEntity line : so.getLines()) {
@@ -83,16 +457,7 @@ public class SalesService {
                 int qty = d.getQuantity();
                 if (qty <= 0) continue;
 
-                InventoryItemEntity inv = inventoryRepository.findByBatchIdAndLocation(batch.getId(), location)
-                        .orElseGet(() -> {
-                            InventoryItemEntity i = new InventoryItemEntity();
-                            i.setBatch(batch);
-                            i.setLocation(location);
-                            i.setQtyOnHand(0);
-                            return i;
-                        });
-                inv.setQtyOnHand(inv.getQtyOnHand() + qty);
-                inventoryRepository.save(inv);
+                inventoryStockService.addStock(batch, location, qty);
 
                 StockMovementEntity mv = new StockMovementEntity();
                 mv.setType(StockMovementType.RETURN);
@@ -105,69 +470,311 @@ public class SalesService {
         }
     }
 
-    private void applySaleLines(SalesOrderEntity so, List<CreateSaleLineCommand> lines, String ref, Authentication authentication) {
+    private void applySaleLines(SalesOrderEntity so, List<CreateSaleLineCommand> lines, String ref, String cartId, Authentication authentication) {
+        List<CreateSaleLineCommand> saleLines = validLines(lines);
+        Map<Long, ProductEntity> products = loadProducts(saleLines);
+
+        Map<StockKey, Integer> needs = new LinkedHashMap<>();
+        for (CreateSaleLineCommand line : saleLines) {
+            needs.merge(keyOf(line), line.quantity(), Integer::sum);
+        }
+        Map<StockKey, Deque<Take>> takes = new HashMap<>();
+        for (var e : allocate(needs, products, ref, cartId, authentication).entrySet()) {
+            takes.put(e.getKey(), new ArrayDeque<>(e.getValue()));
+        }
+
+        for (CreateSaleLineCommand line : saleLines) {
+            SalesOrderLineEntity sol = newLine(line, products.get(line.productId()));
+            assignDeductions(sol, takes.get(keyOf(line)));
+            so.addLine(sol);
+        }
+    }
+
+    private void releaseCartAfterCommit(String cartId) {
+        if (cartId == null || cartId.isBlank()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stockReservations.releaseCart(cartId);
+            }
+        });
+    }
+
+    private static List<CreateSaleLineCommand> validLines(List<CreateSaleLineCommand> lines) {
         if (lines == null || lines.isEmpty()) {
             throw new IllegalArgumentException("At least one line is required");
         }
-
+        List<CreateSaleLineCommand> saleLines = new ArrayList<>(lines.size());
         for (CreateSaleLineCommand line : lines) {
             if (line == null) continue;
             if (line.quantity() <= 0) {
                 throw new IllegalArgumentException("Quantity must be > 0");
             }
-            ProductEntity product = productRepository.findById(line.productId()).orElseThrow();
-            String location = (line.location() != null && !line.location().isBlank()) ? line.location().trim() : "MAIN";
-
-            SalesOrderLineEntity sol = new SalesOrderLineEntity();
-            sol.setProduct(product);
-            sol.setQuantity(line.quantity());
-            sol.setUnitPrice(BigDecimal.valueOf(line.unitPrice()));
-            sol.setLocation(location);
-
-            int remaining = line.quantity();
-            LocalDate today = LocalDate.now();
-
-            List<ProductBatchEntity> batches = batchRepository.findByProductIdOrderByExpiryDateAscCreatedAtAsc(product.getId());
-            for (ProductBatchEntity batch : batches) {
-                if (remaining <= 0) break;
-                if (batch.getExpiryDate().isBefore(today)) {
-                    continue; // expired batch restriction
-                }
-
-                InventoryItemEntity inv = inventoryRepository.findByBatchIdAndLocation(batch.getId(), location).orElse(null);
-                if (inv == null || inv.getQtyOnHand() <= 0) {
-                    continue;
-                }
+            saleLines.add(line);
+        }
+        if (saleLines.isEmpty()) {
+            throw new IllegalArgumentException("At least one line is required");
+        }
+        return saleLines;
+    }
 
-                int take = Math.min(inv.getQtyOnHand(), remaining);
-                inv.setQtyOnHand(inv.getQtyOnHand() - take);
-                inventoryRepository.save(inv);
+    private Map<Long, ProductEntity> loadProducts(List<CreateSaleLineCommand> lines) {
+        Set<Long> productIds = new HashSet<>();
+        for (CreateSaleLineCommand line : lines) {
+            productIds.add(line.productId());
+        }
+        Map<Long, ProductEntity> products = new HashMap<>();
+        for (ProductEntity p : productRepository.findAllById(productIds)) {
+            products.put(p.getId(), p);
+        }
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new NoSuchElementException("Product not found: " + productId);
+            }
+        }
+        return products;
+    }
 
+    /**
+     * Takes the requested quantity per (product, location) in FEFO order and writes one OUT movement per batch.
+     * Stock held for carts other than {@code cartId} is left alone.
+     */
+    private Map<StockKey, List<Take>> allocate(Map<StockKey, Integer> needs, Map<Long, ProductEntity> products, String ref, String cartId, Authentication authentication) {
+        if (needs.isEmpty()) return Map.of();
+        LocalDate today = LocalDate.now();
+        Map<StockKey, Integer> held = new HashMap<>();
+        for (StockKey key : needs.keySet()) {
+            int h = stockReservations.reservedByOthers(key.productId(), key.location(), cartId);
+            if (h > 0) held.put(key, h);
+        }
+        Map<StockKey, List<Take>> takes = allocateFromIndex(needs, held, today);
+        if (takes == null) {
+            takes = allocateFromDatabase(needs, held, products, today);
+        }
+        for (List<Take> list : takes.values()) {
+            for (Take t : list) {
                 StockMovementEntity mv = new StockMovementEntity();
                 mv.setType(StockMovementType.OUT);
-                mv.setBatch(batch);
-                mv.setQuantity(take);
+                mv.setBatch(t.batch());
+                mv.setQuantity(t.quantity());
                 mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
                 mv.setNote(ref != null ? ("Sale ref: " + ref) : "Sale");
                 stockMovementRepository.save(mv);
+            }
+        }
+        return takes;
+    }
 
-                SalesDeductionEntity d = new SalesDeductionEntity();
-                d.setBatch(batch);
-                d.setQuantity(take);
-                sol.addDeduction(d);
+    /**
+     * Plans against the in-memory FEFO index and applies the planned takes. Returns {@code null} with nothing
+     * changed when the index cannot cover the request or one of its rows turned out to be stale.
+     */
+    private Map<StockKey, List<Take>> allocateFromIndex(Map<StockKey, Integer> needs, Map<StockKey, Integer> held, LocalDate today) {
+        Map<Long, Integer> planned = new HashMap<>();
+        Map<StockKey, List<FefoAllocationIndex.Allocation>> plans = new LinkedHashMap<>();
+        for (var e : needs.entrySet()) {
+            Integer h = held.get(e.getKey());
+            if (h != null && fefoAllocationIndex.available(e.getKey().productId(), e.getKey().location(), today) - h < e.getValue()) {
+                return null;
+            }
+            var plan = fefoAllocationIndex.allocate(e.getKey().productId(), e.getKey().location(), e.getValue(), today, planned);
+            if (plan == null) return null;
+            plans.put(e.getKey(), plan);
+        }
 
-                remaining -= take;
+        // Rows are updated in one global order, as lockSellable locks them, so overlapping baskets cannot deadlock.
+        List<FefoAllocationIndex.Allocation> ordered = new ArrayList<>();
+        plans.values().forEach(ordered::addAll);
+        ordered.sort(Comparator.comparing(FefoAllocationIndex.Allocation::row, FefoAllocationIndex.FEFO));
+        List<FefoAllocationIndex.Allocation> taken = new ArrayList<>();
+        for (var a : ordered) {
+            if (!inventoryStockService.take(a)) {
+                taken.forEach(inventoryStockService::putBack);
+                return null;
             }
+            taken.add(a);
+        }
+
+        Set<Long> batchIds = new HashSet<>();
+        for (var a : ordered) {
+            batchIds.add(a.batchId());
+        }
+        Map<Long, ProductBatchEntity> batches = new HashMap<>();
+        for (ProductBatchEntity b : batchRepository.findAllById(batchIds)) {
+            batches.put(b.getId(), b);
+        }
+        Map<StockKey, List<Take>> takes = new LinkedHashMap<>();
+        for (var e : plans.entrySet()) {
+            List<Take> list = new ArrayList<>(e.getValue().size());
+            for (var a : e.getValue()) {
+                list.add(new Take(batches.get(a.batchId()), a.quantity()));
+            }
+            takes.put(e.getKey(), list);
+        }
+        return takes;
+    }
+
+    private Map<StockKey, List<Take>> allocateFromDatabase(Map<StockKey, Integer> needs, Map<StockKey, Integer> held, Map<Long, ProductEntity> products, LocalDate today) {
+        Set<Long> productIds = new HashSet<>();
+        Set<String> locations = new HashSet<>();
+        for (StockKey key : needs.keySet()) {
+            productIds.add(key.productId());
+            locations.add(key.location());
+        }
+        Map<StockKey, List<InventoryItemEntity>> stock = new HashMap<>();
+        for (InventoryItemEntity inv : inventoryRepository.lockSellable(productIds, locations, today)) {
+            StockKey key = new StockKey(inv.getBatch().getProduct().getId(), inv.getLocation());
+            stock.computeIfAbsent(key, k -> new ArrayList<>()).add(inv);
+        }
 
+        Map<StockKey, List<Take>> takes = new LinkedHashMap<>();
+        for (var e : needs.entrySet()) {
+            StockKey key = e.getKey();
+            List<InventoryItemEntity> rows = stock.getOrDefault(key, List.of());
+            int h = held.getOrDefault(key, 0);
+            if (h > 0 && rows.stream().mapToInt(InventoryItemEntity::getQtyOnHand).sum() - h < e.getValue()) {
+                throw new IllegalArgumentException("Insufficient unreserved stock for product " + products.get(key.productId()).getSku() + " at location " + key.location());
+            }
+            List<Take> list = new ArrayList<>();
+            int remaining = e.getValue();
+            for (InventoryItemEntity inv : rows) {
+                if (remaining <= 0) break;
+                int take = Math.min(inv.getQtyOnHand(), remaining);
+                inventoryStockService.change(inv, -take);
+                list.add(new Take(inv.getBatch(), take));
+                remaining -= take;
+            }
             if (remaining > 0) {
-                throw new IllegalArgumentException("Insufficient non-expired stock for product " + product.getSku() + " at location " + location);
+                throw new IllegalArgumentException("Insufficient non-expired stock for product " + products.get(key.productId()).getSku() + " at location " + key.location());
             }
+            takes.put(key, list);
+        }
+        return takes;
+    }
 
-            so.addLine(sol);
+    /**
+     * Returns {@code qty} from the latest-expiring end of {@code pool}, writing one RETURN movement per batch.
+     */
+    private void release(List<Take> pool, String location, int qty, String ref, Authentication authentication) {
+        int remaining = qty;
+        for (int i = pool.size() - 1; i >= 0 && remaining > 0; i--) {
+            Take t = pool.get(i);
+            int back = Math.min(t.quantity(), remaining);
+            inventoryStockService.addStock(t.batch(), location, back);
+
+            StockMovementEntity mv = new StockMovementEntity();
+            mv.setType(StockMovementType.RETURN);
+            mv.setBatch(t.batch());
+            mv.setQuantity(back);
+            mv.setCreatedBy(authentication != null ? String.valueOf(authentication.getPrincipal()) : null);
+            mv.setNote(ref != null ? ("Sale edit ref: " + ref) : "Sale edit");
+            stockMovementRepository.save(mv);
+
+            if (back == t.quantity()) {
+                pool.remove(i);
+            } else {
+                pool.set(i, new Take(t.batch(), t.quantity() - back));
+            }
+            remaining -= back;
+        }
+    }
+
+    private static boolean sameQuantities(List<SalesOrderLineEntity> oldLines, List<CreateSaleLineCommand> newLines) {
+        if (oldLines.size() != newLines.size()) return false;
+        for (int i = 0; i < oldLines.size(); i++) {
+            if (oldLines.get(i).getQuantity() != newLines.get(i).quantity()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Merges the deductions of {@code lines} per batch, in FEFO order.
+     */
+    private static List<Take> poolOf(List<SalesOrderLineEntity> lines) {
+        Map<Long, Take> byBatch = new LinkedHashMap<>();
+        for (SalesOrderLineEntity line : lines) {
+            for (SalesDeductionEntity d : line.getDeductions()) {
+                if (d.getBatch() == null || d.getQuantity() <= 0) continue;
+                byBatch.merge(d.getBatch().getId(), new Take(d.getBatch(), d.getQuantity()),
+                        (a, b) -> new Take(a.batch(), a.quantity() + b.quantity()));
+            }
         }
+        List<Take> pool = new ArrayList<>(byBatch.values());
+        pool.sort(FEFO);
+        return pool;
+    }
+
+    private static void assignDeductions(SalesOrderLineEntity sol, Deque<Take> pool) {
+        int remaining = sol.getQuantity();
+        while (remaining > 0) {
+            Take t = pool.pollFirst();
+            int take = Math.min(t.quantity(), remaining);
+            if (take < t.quantity()) {
+                pool.addFirst(new Take(t.batch(), t.quantity() - take));
+            }
+            SalesDeductionEntity d = new SalesDeductionEntity();
+            d.setBatch(t.batch());
+            d.setQuantity(take);
+            sol.addDeduction(d);
+            remaining -= take;
+        }
+    }
+
+    private static SalesOrderLineEntity newLine(CreateSaleLineCommand line, ProductEntity product) {
+        SalesOrderLineEntity sol = new SalesOrderLineEntity();
+        sol.setProduct(product);
+        sol.setQuantity(line.quantity());
+        sol.setUnitPrice(BigDecimal.valueOf(line.unitPrice()));
+        sol.setLocation(locationOf(line.location()));
+        return sol;
+    }
+
+    /**
+     * Receipts are numbered per branch, taken to be the stock location the sale was rung up at (its first line's).
+     */
+    private static String branchOf(SalesOrderEntity so) {
+        return so.getLines().isEmpty() ? "MAIN" : locationOf(so.getLines().get(0).getLocation());
+    }
+
+    /**
+     * Domain errors carry a message meant for the caller; anything else (SQL errors, lock timeouts) is not passed
+     * through.
+     */
+    private static String chunkFailure(RuntimeException e) {
+        if (e instanceof IllegalArgumentException || e instanceof NoSuchElementException) {
+            return "Could not save sale: " + e.getMessage();
+        }
+        return "Could not save sale";
+    }
+
+    private static StockKey keyOf(CreateSaleLineCommand line) {
+        return new StockKey(line.productId(), locationOf(line.location()));
     }
 
-    public record CreateSaleCommand(String customer, String referenceNumber, List<CreateSaleLineCommand> lines) {
+    private static String locationOf(String location) {
+        return (location != null && !location.isBlank()) ? location.trim() : "MAIN";
+    }
+
+    private static final Comparator<ProductBatchEntity> BATCH_FEFO = Comparator
+            .comparing(ProductBatchEntity::getExpiryDate)
+            .thenComparing(ProductBatchEntity::getCreatedAt)
+            .thenComparing(ProductBatchEntity::getId);
+
+    private static final Comparator<Take> FEFO = Comparator.comparing(Take::batch, BATCH_FEFO);
+
+    private record StockKey(Long productId, String location) {
+    }
+
+    private record Take(ProductBatchEntity batch, int quantity) {
+    }
+
+    /**
+     * {@code cartId} names the cart whose stock reservations this sale may use; they are released once it commits.
+     */
+    public record CreateSaleCommand(String customer, String referenceNumber, List<CreateSaleLineCommand> lines, String cartId) {
+        public CreateSaleCommand(String customer, String referenceNumber, List<CreateSaleLineCommand> lines) {
+            this(customer, referenceNumber, lines, null);
+        }
     }
 
     public record UpdateSaleCommand(long id, String customer, String referenceNumber, List<CreateSaleLineCommand> lines) {
@@ -175,4 +782,29 @@ public class SalesService {
 
     public record CreateSaleLineCommand(long productId, int quantity, double unitPrice, String location) {
     }
+
+    public record ReturnSaleItemsCommand(long saleId, List<ReturnSaleLineCommand> lines) {
+    }
+
+    public record ReturnSaleLineCommand(long lineId, int quantity) {
+    }
+
+    public record TimedSale(CreateSaleCommand sale, Instant soldAt) {
+    }
+
+    public record BulkSaleResult(int index, String referenceNumber, Long saleId, String error, List<LineConflict> conflicts) {
+        static BulkSaleResult failed(int index, CreateSaleCommand cmd, String error, List<LineConflict> conflicts) {
+            return new BulkSaleResult(index, cmd != null ? cmd.referenceNumber() : null, null, error, conflicts);
+        }
+
+        public boolean success() {
+            return saleId != null;
+        }
+    }
+
+    /**
+     * A line that could not be fulfilled: {@code available} is what was left for it at the time.
+     */
+    public record LineConflict(long productId, String sku, String location, int requested, int available) {
+    }
 }
@@ -6,7 +6,11 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "stock_movements")
+@Table(name = "stock_movements", indexes = {
+		@Index(name = "idx_stock_movements_created_at", columnList = "created_at, id"),
+		@Index(name = "idx_stock_movements_type_created_at", columnList = "type, created_at"),
+		@Index(name = "idx_stock_movements_batch_created_at", columnList = "batch_id, created_at")
+})
 public class StockMovementEntity {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,7 +27,7 @@ public class StockMovementEntity {
 	@Column(nullable = false)
 	private int quantity;
 
-	@Column(nullable = false)
+	@Column(name = "created_at", nullable = false)
 	private Instant createdAt = Instant.now();
 
 	@Column(length = 320)
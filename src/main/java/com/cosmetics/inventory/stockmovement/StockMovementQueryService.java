@@ -0,0 +1,85 @@
+package com.cosmetics.inventory.stockmovement;
+
+import com.cosmetics.inventory.paging.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class StockMovementQueryService {
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int MAX_PAGE_SIZE = 500;
+
+	private final EntityManager entityManager;
+
+	public StockMovementQueryService(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Transactional(readOnly = true)
+	public List<StockMovementEntity> find(MovementCriteria criteria) {
+		return buildQuery(criteria, null).getResultList();
+	}
+
+	@Transactional(readOnly = true)
+	public MovementPage findPage(MovementCriteria criteria, Integer first, String after) {
+		int limit = first == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(first, MAX_PAGE_SIZE));
+		List<StockMovementEntity> rows = buildQuery(criteria, KeysetCursor.decode(after))
+				.setMaxResults(limit + 1)
+				.getResultList();
+
+		boolean hasMore = rows.size() > limit;
+		List<StockMovementEntity> items = hasMore ? rows.subList(0, limit) : rows;
+		String nextCursor = null;
+		if (hasMore) {
+			StockMovementEntity last = items.get(items.size() - 1);
+			nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+		}
+		return new MovementPage(items, nextCursor, hasMore);
+	}
+
+	private TypedQuery<StockMovementEntity> buildQuery(MovementCriteria c, KeysetCursor cursor) {
+		StringBuilder jpql = new StringBuilder(
+				"select m from StockMovementEntity m join fetch m.batch b join fetch b.product p where 1 = 1");
+		if (c.type() != null) jpql.append(" and m.type = :type");
+		if (c.batchId() != null) jpql.append(" and m.batch.id = :batchId");
+		if (c.productId() != null) jpql.append(" and b.product.id = :productId");
+		if (c.from() != null) jpql.append(" and m.createdAt >= :from");
+		if (c.to() != null) jpql.append(" and m.createdAt <= :to");
+		if (cursor != null) {
+			jpql.append(" and (m.createdAt < :cursorAt or (m.createdAt = :cursorAt and m.id < :cursorId))");
+		}
+		jpql.append(" order by m.createdAt desc, m.id desc");
+
+		TypedQuery<StockMovementEntity> q = entityManager.createQuery(jpql.toString(), StockMovementEntity.class);
+		if (c.type() != null) q.setParameter("type", c.type());
+		if (c.batchId() != null) q.setParameter("batchId", c.batchId());
+		if (c.productId() != null) q.setParameter("productId", c.productId());
+		if (c.from() != null) q.setParameter("from", c.from());
+		if (c.to() != null) q.setParameter("to", c.to());
+		if (cursor != null) {
+			q.setParameter("cursorAt", cursor.at());
+			q.setParameter("cursorId", cursor.id());
+		}
+		return q;
+	}
+
+	public static StockMovementType parseType(String type) {
+		if (type == null || type.isBlank()) return null;
+		try {
+			return StockMovementType.valueOf(type.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown movement type: " + type.trim());
+		}
+	}
+
+	public record MovementCriteria(StockMovementType type, Long productId, Long batchId, Instant from, Instant to) {
+	}
+
+	public record MovementPage(List<StockMovementEntity> items, String nextCursor, boolean hasMore) {
+	}
+}
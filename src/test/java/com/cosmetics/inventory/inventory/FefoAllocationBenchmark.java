@@ -0,0 +1,151 @@
+package com.cosmetics.inventory.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Times the allocation decision for one basket line: the in-memory index against the per-batch query loop that
+ * createSale used before (batches by expiry, then one inventory lookup per batch). Only the read side is timed;
+ * both paths then apply the same updates.
+ * <p>
+ * Run with {@code mvn test -Dtest=FefoAllocationBenchmark -Dbenchmark=true}. The index is timed on synthetic rows
+ * by default. With {@code -Dbenchmark.jdbcUrl=... -Dbenchmark.user=... -Dbenchmark.password=...} both paths run
+ * against the stock of the product with the most batches at MAIN in that database.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FefoAllocationBenchmark {
+	private static final int WARMUP = 2_000;
+	private static final int ITERATIONS = 20_000;
+	private static final int DB_ITERATIONS = 500;
+	private static final String LOCATION = "MAIN";
+
+	@Test
+	void indexAgainstPerBatchQueryLoop() throws SQLException {
+		String url = System.getProperty("benchmark.jdbcUrl");
+		if (url == null) {
+			List<FefoAllocationIndex.StockRow> rows = syntheticRows(100, 200);
+			report("index, 200 synthetic batches", timeIndex(rows, 100, 150), null);
+			return;
+		}
+		try (Connection con = DriverManager.getConnection(url, System.getProperty("benchmark.user"), System.getProperty("benchmark.password"))) {
+			long productId = busiestProduct(con);
+			List<FefoAllocationIndex.StockRow> rows = loadRows(con, productId);
+			int quantity = Math.max(1, rows.stream().mapToInt(FefoAllocationIndex.StockRow::qtyOnHand).sum() / 2);
+			double index = timeIndex(rows, productId, quantity);
+			double loop = timeQueryLoop(con, productId, quantity);
+			report("product " + productId + ", " + rows.size() + " batches, quantity " + quantity, index, loop);
+		}
+	}
+
+	private static double timeIndex(List<FefoAllocationIndex.StockRow> rows, long productId, int quantity) {
+		FefoAllocationIndex index = new FefoAllocationIndex();
+		index.apply(rows);
+		index.markReady();
+		LocalDate today = LocalDate.now();
+		for (int i = 0; i < WARMUP; i++) {
+			assertNotNull(index.allocate(productId, LOCATION, quantity, today, new HashMap<>()));
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			index.allocate(productId, LOCATION, quantity, today, new HashMap<>());
+		}
+		return (System.nanoTime() - start) / (double) ITERATIONS;
+	}
+
+	private static double timeQueryLoop(Connection con, long productId, int quantity) throws SQLException {
+		try (PreparedStatement batches = con.prepareStatement(
+				"select id, expiry_date from product_batches where product_id = ? order by expiry_date asc, created_at asc");
+			 PreparedStatement inventory = con.prepareStatement(
+					 "select qty_on_hand from inventory where batch_id = ? and location = ?")) {
+			for (int i = 0; i < DB_ITERATIONS / 10; i++) {
+				queryLoop(batches, inventory, productId, quantity);
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < DB_ITERATIONS; i++) {
+				queryLoop(batches, inventory, productId, quantity);
+			}
+			return (System.nanoTime() - start) / (double) DB_ITERATIONS;
+		}
+	}
+
+	private static void queryLoop(PreparedStatement batches, PreparedStatement inventory, long productId, int quantity) throws SQLException {
+		LocalDate today = LocalDate.now();
+		int remaining = quantity;
+		batches.setLong(1, productId);
+		try (ResultSet b = batches.executeQuery()) {
+			while (remaining > 0 && b.next()) {
+				if (b.getObject(2, LocalDate.class).isBefore(today)) continue;
+				inventory.setLong(1, b.getLong(1));
+				inventory.setString(2, LOCATION);
+				try (ResultSet inv = inventory.executeQuery()) {
+					if (inv.next() && inv.getInt(1) > 0) {
+						remaining -= Math.min(inv.getInt(1), remaining);
+					}
+				}
+			}
+		}
+	}
+
+	private static long busiestProduct(Connection con) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(
+				"select b.product_id from inventory i join product_batches b on b.id = i.batch_id " +
+						"where i.location = ? and i.qty_on_hand > 0 and b.expiry_date >= current_date " +
+						"group by b.product_id order by count(*) desc limit 1")) {
+			ps.setString(1, LOCATION);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) throw new IllegalStateException("No sellable stock at " + LOCATION);
+				return rs.getLong(1);
+			}
+		}
+	}
+
+	private static List<FefoAllocationIndex.StockRow> loadRows(Connection con, long productId) throws SQLException {
+		List<FefoAllocationIndex.StockRow> rows = new ArrayList<>();
+		try (PreparedStatement ps = con.prepareStatement(
+				"select i.id, i.batch_id, b.expiry_date, b.created_at, b.cost_price, i.qty_on_hand, i.version " +
+						"from inventory i join product_batches b on b.id = i.batch_id " +
+						"where b.product_id = ? and i.location = ? and i.qty_on_hand > 0")) {
+			ps.setLong(1, productId);
+			ps.setString(2, LOCATION);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					rows.add(new FefoAllocationIndex.StockRow(rs.getLong(1), productId, rs.getLong(2), LOCATION,
+							rs.getObject(3, LocalDate.class), rs.getTimestamp(4).toInstant(), rs.getBigDecimal(5),
+							rs.getInt(6), rs.getLong(7)));
+				}
+			}
+		}
+		return rows;
+	}
+
+	private static List<FefoAllocationIndex.StockRow> syntheticRows(long productId, int batches) {
+		List<FefoAllocationIndex.StockRow> rows = new ArrayList<>(batches);
+		LocalDate today = LocalDate.now();
+		for (int i = 0; i < batches; i++) {
+			rows.add(new FefoAllocationIndex.StockRow(i + 1, productId, i + 1, LOCATION, today.plusDays(i + 1),
+					Instant.EPOCH.plusSeconds(i), BigDecimal.ONE, 3, 0));
+		}
+		return rows;
+	}
+
+	private static void report(String setup, double indexNanos, Double loopNanos) {
+		System.out.printf("FEFO allocation (%s): index %.2f us/op%n", setup, indexNanos / 1_000);
+		if (loopNanos != null) {
+			System.out.printf("FEFO allocation (%s): per-batch query loop %.2f us/op (%.0fx)%n", setup, loopNanos / 1_000, loopNanos / indexNanos);
+		}
+	}
+}
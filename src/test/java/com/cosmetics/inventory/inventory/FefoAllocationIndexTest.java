@@ -0,0 +1,71 @@
+package com.cosmetics.inventory.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FefoAllocationIndexTest {
+	private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+	@Test
+	void allocatesEarliestExpiryFirstAndSkipsExpiredBatches() {
+		FefoAllocationIndex index = new FefoAllocationIndex();
+		index.apply(List.of(
+				row(1, 10, TODAY.plusDays(30), 5, 0),
+				row(2, 11, TODAY.minusDays(1), 50, 0),
+				row(3, 12, TODAY.plusDays(2), 3, 0)
+		));
+		index.markReady();
+
+		var plan = index.allocate(100, "MAIN", 6, TODAY, new HashMap<>());
+
+		assertEquals(2, plan.size());
+		assertEquals(12, plan.get(0).batchId());
+		assertEquals(3, plan.get(0).quantity());
+		assertEquals(10, plan.get(1).batchId());
+		assertEquals(3, plan.get(1).quantity());
+	}
+
+	@Test
+	void linesOfOneBasketDoNotClaimTheSameStockTwice() {
+		FefoAllocationIndex index = new FefoAllocationIndex();
+		index.apply(List.of(row(1, 10, TODAY.plusDays(5), 4, 0)));
+		index.markReady();
+		Map<Long, Integer> planned = new HashMap<>();
+
+		assertEquals(3, index.allocate(100, "MAIN", 3, TODAY, planned).get(0).quantity());
+		assertNull(index.allocate(100, "MAIN", 2, TODAY, planned));
+		assertEquals(1, index.allocate(100, "MAIN", 1, TODAY, planned).get(0).quantity());
+	}
+
+	@Test
+	void olderRowVersionsAreIgnored() {
+		FefoAllocationIndex index = new FefoAllocationIndex();
+		index.apply(List.of(row(1, 10, TODAY.plusDays(5), 0, 7)));
+		index.apply(List.of(row(1, 10, TODAY.plusDays(5), 9, 3)));
+		index.markReady();
+
+		assertNull(index.allocate(100, "MAIN", 1, TODAY, new HashMap<>()));
+	}
+
+	@Test
+	void returnsNothingUntilWarm() {
+		FefoAllocationIndex index = new FefoAllocationIndex();
+		index.apply(List.of(row(1, 10, TODAY.plusDays(5), 4, 0)));
+
+		assertNull(index.allocate(100, "MAIN", 1, TODAY, new HashMap<>()));
+	}
+
+	private static FefoAllocationIndex.StockRow row(long inventoryId, long batchId, LocalDate expiry, int qty, long version) {
+		return new FefoAllocationIndex.StockRow(
+				inventoryId, 100, batchId, "MAIN", expiry, Instant.EPOCH, BigDecimal.ONE, qty, version);
+	}
+}
@@ -0,0 +1,90 @@
+package com.cosmetics.inventory.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StockReservationsTest {
+	private static final Instant START = Instant.parse("2026-03-01T10:00:00Z");
+
+	@Test
+	void holdsReduceAvailabilityForOtherCartsOnly() {
+		StockReservations reservations = new StockReservations(index(10), new MutableClock());
+
+		reservations.reserve("cart-a", 100, "MAIN", 7, Duration.ofMinutes(5));
+
+		assertEquals(3, reservations.availability(100, "MAIN").available());
+		assertEquals(7, reservations.reservedByOthers(100, "MAIN", "cart-b"));
+		assertEquals(0, reservations.reservedByOthers(100, "MAIN", "cart-a"));
+		assertThrows(IllegalArgumentException.class, () -> reservations.reserve("cart-b", 100, "MAIN", 4, null));
+	}
+
+	@Test
+	void holdsLapseAfterTheirTtl() {
+		MutableClock clock = new MutableClock();
+		StockReservations reservations = new StockReservations(index(10), clock);
+		reservations.reserve("cart-a", 100, "MAIN", 4, Duration.ofSeconds(30));
+		reservations.reserve("cart-b", 100, "MAIN", 5, Duration.ofMinutes(20));
+
+		clock.advance(Duration.ofSeconds(29));
+		assertEquals(9, reservations.availability(100, "MAIN").reserved());
+
+		clock.advance(Duration.ofSeconds(2));
+		assertEquals(5, reservations.availability(100, "MAIN").reserved());
+
+		// Longer than a full turn of the wheel without any call in between.
+		clock.advance(Duration.ofMinutes(20));
+		assertEquals(0, reservations.availability(100, "MAIN").reserved());
+	}
+
+	@Test
+	void releasingACartFreesAllOfItsHolds() {
+		StockReservations reservations = new StockReservations(index(10), new MutableClock());
+		reservations.reserve("cart-a", 100, "MAIN", 2, null);
+		reservations.reserve("cart-a", 100, "MAIN", 3, null);
+
+		assertEquals(2, reservations.releaseCart("cart-a"));
+		assertEquals(10, reservations.availability(100, "MAIN").available());
+	}
+
+	private static FefoAllocationIndex index(int qty) {
+		FefoAllocationIndex index = new FefoAllocationIndex();
+		index.apply(List.of(new FefoAllocationIndex.StockRow(
+				1, 100, 10, "MAIN", LocalDate.of(2027, 1, 1), START, BigDecimal.ONE, qty, 0)));
+		index.markReady();
+		return index;
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant now = START;
+
+		void advance(Duration d) {
+			now = now.plus(d);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
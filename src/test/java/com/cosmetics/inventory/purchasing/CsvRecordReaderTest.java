@@ -0,0 +1,36 @@
+package com.cosmetics.inventory.purchasing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRecordReaderTest {
+	@Test
+	void readsQuotedFieldsAndTracksStartLines() throws IOException {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader(
+				"\uFEFFsku,note\r\nA-1,\"plain, with comma\"\nB-2,\"two\nlines \"\"quoted\"\"\"\nC-3,"));
+
+		assertEquals(List.of("sku", "note"), reader.next());
+		assertEquals(List.of("A-1", "plain, with comma"), reader.next());
+		assertEquals(2, reader.recordLine());
+		assertEquals(List.of("B-2", "two\nlines \"quoted\""), reader.next());
+		assertEquals(3, reader.recordLine());
+		assertEquals(List.of("C-3", ""), reader.next());
+		assertEquals(5, reader.recordLine());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void rejectsUnterminatedQuotes() throws IOException {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("sku\n\"A-1\n"));
+		reader.next();
+
+		assertThrows(IllegalArgumentException.class, reader::next);
+	}
+}
@@ -0,0 +1,80 @@
+package com.cosmetics.inventory.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SalesAggregatorTest {
+	@Test
+	void sumsScaledAmountsExactly() {
+		SalesAggregator aggregator = new SalesAggregator();
+		aggregator.add(1, "A", "Serum", 1, new BigDecimal("0.1234"), new BigDecimal("0.001"));
+		aggregator.add(2, "B", "Toner", 1, new BigDecimal("19.995"), new BigDecimal("0.0001"));
+		aggregator.add(2, "B", "Toner", 1, new BigDecimal("0.00005"), null);
+
+		assertEquals(new BigDecimal("20.1185"), SalesAggregator.toDecimal(aggregator.totalRevenue()));
+		assertEquals(new BigDecimal("0.0011"), SalesAggregator.toDecimal(aggregator.totalCost()));
+		assertEquals(new BigDecimal("19.9951"), SalesAggregator.toDecimal(items(aggregator).get(0).revenue()));
+	}
+
+	@Test
+	void foldsRepeatedProductsIntoOneItem() {
+		SalesAggregator aggregator = new SalesAggregator();
+		aggregator.add(7, "A", "Serum", 2, new BigDecimal("10.50"), new BigDecimal("4"));
+		aggregator.add(7, "A", "Serum", 3, new BigDecimal("15.75"), new BigDecimal("6"));
+
+		List<Item> items = items(aggregator);
+		assertEquals(1, items.size());
+		assertEquals(new Item(7, 5, SalesAggregator.toMinor(new BigDecimal("26.25")), SalesAggregator.toMinor(BigDecimal.TEN)), items.get(0));
+		assertEquals(5, aggregator.totalQuantity());
+	}
+
+	@Test
+	void keepsEveryProductWhenGrowingPastItsInitialCapacity() {
+		SalesAggregator aggregator = new SalesAggregator(2);
+		for (int round = 0; round < 2; round++) {
+			for (long id = 1; id <= 100; id++) {
+				aggregator.add(id, "S" + id, "P" + id, 1, id * 10_000, 0);
+			}
+		}
+
+		List<Item> items = items(aggregator);
+		assertEquals(100, items.size());
+		for (int i = 0; i < items.size(); i++) {
+			long id = 100 - i;
+			assertEquals(new Item(id, 2, id * 20_000, 0), items.get(i));
+		}
+		assertEquals(200, aggregator.totalQuantity());
+	}
+
+	@Test
+	void keepsFirstSeenOrderForEqualRevenue() {
+		SalesAggregator aggregator = new SalesAggregator();
+		aggregator.add(3, "C", "C", 1, 500, 0);
+		aggregator.add(1, "A", "A", 1, 1_000, 0);
+		aggregator.add(9, "I", "I", 1, 500, 0);
+		aggregator.add(5, "E", "E", 1, 500, 0);
+
+		assertEquals(List.of(1L, 3L, 9L, 5L), items(aggregator).stream().map(Item::productId).toList());
+	}
+
+	@Test
+	void failsInsteadOfOverflowing() {
+		SalesAggregator aggregator = new SalesAggregator();
+		aggregator.add(1, "A", "A", Long.MAX_VALUE, Long.MAX_VALUE, 0);
+
+		assertThrows(ArithmeticException.class, () -> aggregator.add(2, "B", "B", 0, 1, 0));
+		assertThrows(ArithmeticException.class, () -> aggregator.add(1, "A", "A", 1, 0, 0));
+	}
+
+	private static List<Item> items(SalesAggregator aggregator) {
+		return aggregator.items((productId, sku, name, quantity, revenue, cost) -> new Item(productId, quantity, revenue, cost));
+	}
+
+	private record Item(long productId, long quantity, long revenue, long cost) {
+	}
+}